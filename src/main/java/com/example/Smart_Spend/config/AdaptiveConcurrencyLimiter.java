@@ -0,0 +1,90 @@
+package com.example.Smart_Spend.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AIMD concurrency limit driven by observed latency. Each successful fast response
+ * grows the limit by {@code 1/limit} (about +1 per round of requests); a response
+ * slower than the threshold shrinks it by the backoff ratio, at most once per threshold
+ * window so a single burst of slow responses does not collapse it to the floor.
+ * <p>
+ * Lower priorities may only use a share of the limit, so they are shed first.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    public enum Priority {
+        CRITICAL(1.0),
+        NORMAL(0.9),
+        LOW(0.5);
+
+        private final double share;
+
+        Priority(double share) {
+            this.share = share;
+        }
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private long lastDecreaseAt;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      long latencyThresholdNanos, double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        // nanoTime has an arbitrary origin; allow the first decrease right away
+        this.lastDecreaseAt = System.nanoTime() - latencyThresholdNanos;
+    }
+
+    public boolean tryAcquire(Priority priority) {
+        int allowed = Math.max(1, (int) (limit * priority.share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a permit. Pass {@code sample=false} for requests that are slow by design
+     * (exports, reports) so they do not drag the limit down.
+     */
+    public void release(long latencyNanos, boolean sample) {
+        int current = inFlight.getAndDecrement();
+        if (sample) {
+            onSample(latencyNanos, current, System.nanoTime());
+        }
+    }
+
+    synchronized void onSample(long latencyNanos, int inFlightAtCompletion, long now) {
+        if (latencyNanos > latencyThresholdNanos) {
+            if (now - lastDecreaseAt >= latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecreaseAt = now;
+            }
+        } else if (inFlightAtCompletion * 2 >= limit) {
+            // Only grow when the current limit is actually being used
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
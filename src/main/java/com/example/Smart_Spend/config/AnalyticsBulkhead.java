@@ -0,0 +1,198 @@
+package com.example.Smart_Spend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Isolates admin analytics and exports from interactive traffic: they run on their
+ * own small executor against their own connection pool, with a hard statement timeout.
+ * When the bulkhead is full, callers fail fast instead of queueing on the main pool.
+ * <p>
+ * Exports get their own, longer deadline and never touch the response themselves: the
+ * task hands its output to the calling thread through a small buffer, so a slow client
+ * only holds the task back and a cancelled task can no longer write.
+ *
+ * The pool is deliberately not exposed as a DataSource bean so Boot's primary pool
+ * auto-configuration is unaffected.
+ */
+@Component
+@Slf4j
+public class AnalyticsBulkhead implements DisposableBean {
+
+    private static final int EXPORT_CHUNK_CHARS = 8192;
+    private static final int EXPORT_BUFFER_CHUNKS = 64;
+
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ThreadPoolExecutor threadPool;
+    private final ExecutorService executor;
+    private final long timeoutSeconds;
+    private final long exportTimeoutSeconds;
+
+    /** An export body; {@code out} takes CSV lines without their line break. */
+    @FunctionalInterface
+    public interface Export {
+        void run(Consumer<String> out) throws Exception;
+    }
+
+    public AnalyticsBulkhead(DataSourceProperties properties,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.analytics.datasource.url:${spring.datasource.url}}") String url,
+                             @Value("${app.analytics.pool-size:3}") int poolSize,
+                             @Value("${app.analytics.threads:2}") int threads,
+                             @Value("${app.analytics.queue-capacity:10}") int queueCapacity,
+                             @Value("${app.analytics.statement-timeout-seconds:30}") long timeoutSeconds,
+                             @Value("${app.analytics.export-timeout-seconds:600}") long exportTimeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+        this.exportTimeoutSeconds = exportTimeoutSeconds;
+
+        dataSource = new HikariDataSource();
+        dataSource.setPoolName("analytics");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(properties.getUsername());
+        dataSource.setPassword(properties.getPassword());
+        dataSource.setDriverClassName(properties.getDriverClassName());
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.setMinimumIdle(0);
+        dataSource.setReadOnly(true);
+        // Cursor-based fetching in pgjdbc needs autocommit off; Hikari rolls back on return
+        dataSource.setAutoCommit(false);
+        dataSource.setConnectionInitSql("SET statement_timeout TO " + TimeUnit.SECONDS.toMillis(timeoutSeconds));
+        dataSource.setInitializationFailTimeout(-1);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setQueryTimeout((int) timeoutSeconds);
+        jdbcTemplate.setFetchSize(1000);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        threadPool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "analytics-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor = ExecutorServiceMetrics.monitor(meterRegistry, threadPool, "analytics");
+    }
+
+    public JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    /**
+     * Runs {@code task} inside the bulkhead and waits at most the statement timeout for it.
+     * Throws when the bulkhead is saturated or the task overruns; the overrunning task is cancelled.
+     */
+    public <T> T execute(String name, Callable<T> task) {
+        Future<T> future = submit(name, task);
+        try {
+            return future.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("Analytics task {} exceeded {}s and was cancelled", name, timeoutSeconds);
+            throw new RuntimeException(name + " timed out");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(name + " was interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException re ? re : new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Runs {@code export} inside the bulkhead and writes what it produces to {@code writer} on
+     * the calling thread, for at most the export timeout. Each query is still bound by the
+     * statement timeout. On overrun, failure or a client that went away the task is cancelled;
+     * it stops at its next line at the latest and never writes to {@code writer}.
+     */
+    public void stream(String name, Export export, Writer writer) throws IOException {
+        BlockingQueue<String> chunks = new ArrayBlockingQueue<>(EXPORT_BUFFER_CHUNKS);
+        Future<Void> future = submit(name, () -> {
+            StringBuilder chunk = new StringBuilder(EXPORT_CHUNK_CHARS);
+            export.run(line -> {
+                chunk.append(line).append('\n');
+                if (chunk.length() >= EXPORT_CHUNK_CHARS) {
+                    put(chunks, chunk, name);
+                }
+            });
+            put(chunks, chunk, name);
+            return null;
+        });
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(exportTimeoutSeconds);
+        try {
+            while (true) {
+                String chunk = chunks.poll(100, TimeUnit.MILLISECONDS);
+                if (chunk != null) {
+                    writer.write(chunk);
+                } else if (future.isDone() && chunks.isEmpty()) {
+                    future.get();
+                    return;
+                } else if (System.nanoTime() - deadline > 0) {
+                    log.warn("Analytics export {} exceeded {}s and was cancelled", name, exportTimeoutSeconds);
+                    throw new RuntimeException(name + " timed out");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(name + " was interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException re ? re : new RuntimeException(cause);
+        } finally {
+            future.cancel(true);
+        }
+    }
+
+    private static void put(BlockingQueue<String> chunks, StringBuilder chunk, String name) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            chunks.put(chunk.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException(name + " was cancelled");
+        }
+        chunk.setLength(0);
+    }
+
+    private <T> Future<T> submit(String name, Callable<T> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("Analytics bulkhead full, rejecting {}", name);
+            throw new RuntimeException("Reporting is busy right now, please try again shortly");
+        }
+    }
+
+    public int getQueueDepth() {
+        return threadPool.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return threadPool.getActiveCount();
+    }
+
+    @Override
+    public void destroy() {
+        threadPool.shutdownNow();
+        dataSource.close();
+    }
+}
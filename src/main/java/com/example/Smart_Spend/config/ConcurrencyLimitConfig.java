@@ -0,0 +1,50 @@
+package com.example.Smart_Spend.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adaptive concurrency limit in front of everything except static resources.
+ * Registered ahead of the session and security filters so shed requests cost nothing.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.concurrency", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter(MeterRegistry meterRegistry,
+                                                                 @Value("${app.concurrency.initial-limit:20}") int initialLimit,
+                                                                 @Value("${app.concurrency.min-limit:5}") int minLimit,
+                                                                 @Value("${app.concurrency.max-limit:100}") int maxLimit,
+                                                                 @Value("${app.concurrency.latency-threshold-ms:1000}") long thresholdMs,
+                                                                 @Value("${app.concurrency.backoff-ratio:0.9}") double backoffRatio) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                TimeUnit.MILLISECONDS.toNanos(thresholdMs), backoffRatio);
+        Gauge.builder("smartspend.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .register(meterRegistry);
+        Gauge.builder("smartspend.concurrency.in_flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            AdaptiveConcurrencyLimiter limiter, MeterRegistry meterRegistry,
+            @Value("${app.concurrency.critical-paths:/login,/logout,/actuator/health}") List<String> criticalPaths,
+            @Value("${app.concurrency.low-priority-paths:/admin/reports/**}") List<String> lowPriorityPaths) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(limiter, meterRegistry, criticalPaths, lowPriorityPaths));
+        // After character encoding, before the session repository and security filters
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.Smart_Spend.config;
+
+import com.example.Smart_Spend.config.AdaptiveConcurrencyLimiter.Priority;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admits requests through an {@link AdaptiveConcurrencyLimiter} and answers 503 straight
+ * away when the route's priority class is over its share, instead of letting the request
+ * queue on a Tomcat thread for a database connection.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final List<String> EXCLUDED = List.of(
+            "/css/**", "/js/**", "/images/**", "/webjars/**", "/favicon.ico");
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final MeterRegistry meterRegistry;
+    private final List<String> criticalPaths;
+    private final List<String> lowPriorityPaths;
+    private final AntPathMatcher matcher = new AntPathMatcher();
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter, MeterRegistry meterRegistry,
+                                  List<String> criticalPaths, List<String> lowPriorityPaths) {
+        this.limiter = limiter;
+        this.meterRegistry = meterRegistry;
+        this.criticalPaths = criticalPaths;
+        this.lowPriorityPaths = lowPriorityPaths;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return matchesAny(EXCLUDED, path(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Priority priority = classify(path(request));
+        if (!limiter.tryAcquire(priority)) {
+            meterRegistry.counter("smartspend.concurrency.shed", "priority", priority.name()).increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader("Retry-After", "1");
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("The server is busy right now. Please try again in a moment.");
+            return;
+        }
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                limiter.release(System.nanoTime() - start, priority != Priority.LOW);
+            }
+        };
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Streamed responses (CSV exports) hold their slot until the body is written; the
+                // async cycle cannot complete before this dispatch returns, so no event is missed
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        release.run();
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        release.run();
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        release.run();
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    Priority classify(String path) {
+        if (matchesAny(criticalPaths, path)) {
+            return Priority.CRITICAL;
+        }
+        if (matchesAny(lowPriorityPaths, path)) {
+            return Priority.LOW;
+        }
+        return Priority.NORMAL;
+    }
+
+    private boolean matchesAny(List<String> patterns, String path) {
+        for (String pattern : patterns) {
+            if (matcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
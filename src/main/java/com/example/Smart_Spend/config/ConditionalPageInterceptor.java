@@ -0,0 +1,66 @@
+package com.example.Smart_Spend.config;
+
+import com.example.Smart_Spend.entity.UserDataVersion;
+import com.example.Smart_Spend.security.AuthenticatedUser;
+import com.example.Smart_Spend.service.DataVersionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.support.RequestContextUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Answers 304 for user pages whose inputs have not changed, before the controller runs.
+ * <p>
+ * The ETag covers everything the page depends on besides the URL: the user's data
+ * version, the session (its CSRF token and principal), today's date (pages default
+ * to the current month) and the application start (templates may have changed).
+ */
+@RequiredArgsConstructor
+public class ConditionalPageInterceptor implements HandlerInterceptor {
+
+    private static final long STARTED_AT = System.currentTimeMillis();
+
+    private final DataVersionService dataVersionService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod())) {
+            return true;
+        }
+        // A flash message (e.g. an error after a redirect) must be rendered
+        var flash = RequestContextUtils.getInputFlashMap(request);
+        if (flash != null && !flash.isEmpty()) {
+            return true;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        HttpSession session = request.getSession(false);
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser user)
+                || session == null) {
+            return true;
+        }
+
+        UserDataVersion version = dataVersionService.current(user.getId());
+        LocalDate today = LocalDate.now();
+        String source = user.getId() + ":" + version.getVersion() + ":" + session.getId() + ":" + today + ":" + STARTED_AT;
+        String etag = '"' + DigestUtils.md5DigestAsHex(source.getBytes(StandardCharsets.UTF_8)) + '"';
+
+        ZoneId zone = ZoneId.systemDefault();
+        long lastModified = Math.max(Math.max(version.getUpdatedAt().atZone(zone).toInstant().toEpochMilli(),
+                        today.atStartOfDay(zone).toInstant().toEpochMilli()),
+                Math.max(STARTED_AT, session.getCreationTime()));
+
+        // Revalidate on every use; never shared by proxies
+        response.setHeader("Cache-Control", "private, no-cache");
+        return !new ServletWebRequest(request, response).checkNotModified(etag, lastModified);
+    }
+}
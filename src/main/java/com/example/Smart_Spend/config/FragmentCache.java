@@ -0,0 +1,151 @@
+package com.example.Smart_Spend.config;
+
+import com.example.Smart_Spend.service.CacheFlushEvent;
+import com.example.Smart_Spend.service.DataVersionService;
+import com.example.Smart_Spend.service.UserDataChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.ServletContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Caches the rendered HTML of template fragments per user and data version.
+ * The page embeds the result with {@code th:utext}, and on a hit the caller's
+ * variable supplier (and the queries behind it) is never invoked.
+ * <p>
+ * Entries for a user are dropped when their data changes on any node; the whole cache is an
+ * LRU bounded by {@code app.fragment-cache.max-bytes}. Only cache fragments that
+ * contain no session-specific markup such as CSRF fields.
+ */
+@Component
+@Slf4j
+public class FragmentCache {
+
+    private record Entry(Long userId, String html) {
+        long bytes() {
+            return 2L * html.length() + 64;
+        }
+    }
+
+    private final SpringTemplateEngine templateEngine;
+    private final DataVersionService dataVersionService;
+    private final MeterRegistry meterRegistry;
+    private final JakartaServletWebApplication webApplication;
+    private final long maxBytes;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long usedBytes;
+
+    public FragmentCache(SpringTemplateEngine templateEngine,
+                         DataVersionService dataVersionService,
+                         MeterRegistry meterRegistry,
+                         ServletContext servletContext,
+                         @Value("${app.fragment-cache.max-bytes:16777216}") long maxBytes) {
+        this.templateEngine = templateEngine;
+        this.dataVersionService = dataVersionService;
+        this.meterRegistry = meterRegistry;
+        this.webApplication = JakartaServletWebApplication.buildApplication(servletContext);
+        this.maxBytes = maxBytes;
+        Gauge.builder("smartspend.view.fragment.cache.bytes", this, cache -> cache.usedBytes()).register(meterRegistry);
+        Gauge.builder("smartspend.view.fragment.cache.entries", this, cache -> cache.size()).register(meterRegistry);
+    }
+
+    /**
+     * Returns the rendered {@code template :: fragment} for the user's current data version.
+     *
+     * @param discriminator anything else the output depends on (e.g. the month shown)
+     */
+    public String render(String template, String fragment, Long userId, Object discriminator,
+                         Supplier<Map<String, Object>> variables) {
+        long version = dataVersionService.current(userId).getVersion();
+        String key = template + "::" + fragment + '|' + userId + '|' + version + '|' + discriminator;
+
+        String cached = get(key);
+        if (cached != null) {
+            meterRegistry.counter("smartspend.view.fragment.cache", "result", "hit").increment();
+            return cached;
+        }
+        meterRegistry.counter("smartspend.view.fragment.cache", "result", "miss").increment();
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String html = process(template, fragment, variables.get());
+        sample.stop(meterRegistry.timer("smartspend.view.fragment.render", "template", template + "::" + fragment));
+
+        put(key, new Entry(userId, html));
+        return html;
+    }
+
+    @EventListener
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        evictUser(event.userId());
+    }
+
+    @EventListener
+    public synchronized void onCacheFlush(CacheFlushEvent event) {
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    public synchronized void evictUser(Long userId) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.userId().equals(userId)) {
+                usedBytes -= entry.bytes();
+                it.remove();
+            }
+        }
+    }
+
+    private String process(String template, String fragment, Map<String, Object> variables) {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        var exchange = webApplication.buildExchange(attributes.getRequest(), attributes.getResponse());
+        WebContext context = new WebContext(exchange, RequestContextUtils.getLocale(attributes.getRequest()), variables);
+        return templateEngine.process(template, Set.of(fragment), context);
+    }
+
+    private synchronized String get(String key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.html() : null;
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        if (entry.bytes() > maxBytes) {
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            usedBytes -= previous.bytes();
+        }
+        usedBytes += entry.bytes();
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (usedBytes > maxBytes && eldest.hasNext()) {
+            usedBytes -= eldest.next().bytes();
+            eldest.remove();
+        }
+    }
+
+    private synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+}
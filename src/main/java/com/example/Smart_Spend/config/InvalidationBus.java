@@ -0,0 +1,298 @@
+package com.example.Smart_Spend.config;
+
+import com.example.Smart_Spend.service.BudgetChangedEvent;
+import com.example.Smart_Spend.service.CacheFlushEvent;
+import com.example.Smart_Spend.service.UserAccountChangedEvent;
+import com.example.Smart_Spend.service.UserDataChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relays cache invalidations between nodes over Postgres LISTEN/NOTIFY, so no broker is needed.
+ * <p>
+ * Local {@link UserDataChangedEvent}s, {@link UserAccountChangedEvent}s and {@link BudgetChangedEvent}s
+ * are collected per transaction and sent with {@code pg_notify} just before commit, on the
+ * transaction's own connection: Postgres delivers them only if the write commits. Payloads are
+ * compact, {@code origin|D:userId:version,U:userId:0[:deletedEmail],B:userId:budgetId,...} (0 for
+ * none, the email URL-encoded), split to stay under the 8000 byte limit.
+ * <p>
+ * Each node listens on a dedicated connection (not from the pool) and republishes what other
+ * nodes sent as remote events. Notifications sent while a node is not listening are lost, so
+ * every (re)connect publishes a {@link CacheFlushEvent}; a silent connection is probed so a dead
+ * socket is noticed. Point {@code app.invalidation.url} at the primary directly, not through a
+ * transaction-pooling proxy, which cannot hold a LISTEN.
+ */
+@Component
+@Slf4j
+public class InvalidationBus implements SmartLifecycle {
+
+    static final String CHANNEL = "smartspend_invalidation";
+    private static final int MAX_PAYLOAD_CHARS = 7900;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int pollMs;
+    private final long probeNanos;
+    private final String origin = UUID.randomUUID().toString().substring(0, 8);
+    private final Counter sent;
+    private final Counter received;
+    private final Counter flushes;
+
+    private volatile boolean running;
+    private volatile boolean connected;
+    private volatile Connection listenConnection;
+    private Thread listener;
+
+    public InvalidationBus(JdbcTemplate jdbcTemplate,
+                           ApplicationEventPublisher eventPublisher,
+                           DataSourceProperties properties,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.invalidation.enabled:true}") boolean enabled,
+                           @Value("${app.invalidation.url:${spring.datasource.url}}") String url,
+                           @Value("${app.invalidation.poll-ms:500}") int pollMs,
+                           @Value("${app.invalidation.probe-ms:30000}") long probeMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.url = url;
+        this.username = properties.getUsername();
+        this.password = properties.getPassword();
+        this.pollMs = pollMs;
+        this.probeNanos = TimeUnit.MILLISECONDS.toNanos(probeMs);
+        this.sent = meterRegistry.counter("smartspend.invalidation.sent");
+        this.received = meterRegistry.counter("smartspend.invalidation.received");
+        this.flushes = meterRegistry.counter("smartspend.invalidation.flushes");
+        Gauge.builder("smartspend.invalidation.connected", this, bus -> bus.connected ? 1 : 0).register(meterRegistry);
+    }
+
+    @EventListener
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        if (!event.remote()) {
+            enqueue("D:" + event.userId() + ":" + event.version());
+        }
+    }
+
+    @EventListener
+    public void onUserAccountChanged(UserAccountChangedEvent event) {
+        if (!event.remote()) {
+            enqueue("U:" + event.userId() + ":0" + (event.deletedEmail() != null
+                    ? ":" + URLEncoder.encode(event.deletedEmail(), StandardCharsets.UTF_8) : ""));
+        }
+    }
+
+    @EventListener
+    public void onBudgetChanged(BudgetChangedEvent event) {
+        if (!event.remote()) {
+            enqueue("B:" + event.userId() + ":" + (event.budgetId() != null ? event.budgetId() : 0));
+        }
+    }
+
+    private void enqueue(String item) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            send(List.of(item));
+            return;
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new Pending();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.items.add(item);
+    }
+
+    private final class Pending implements TransactionSynchronization {
+        private final Set<String> items = new LinkedHashSet<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            send(items);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(InvalidationBus.this);
+        }
+    }
+
+    private void send(Collection<String> items) {
+        StringBuilder payload = new StringBuilder(origin).append('|');
+        int header = payload.length();
+        for (String item : items) {
+            if (payload.length() > header && payload.length() + item.length() + 1 > MAX_PAYLOAD_CHARS) {
+                notify(payload.toString());
+                payload.setLength(header);
+            }
+            if (payload.length() > header) {
+                payload.append(',');
+            }
+            payload.append(item);
+        }
+        if (payload.length() > header) {
+            notify(payload.toString());
+        }
+    }
+
+    private void notify(String payload) {
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, payload);
+        sent.increment();
+    }
+
+    private void listen() {
+        long backoffMs = 1000;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                listenConnection = connection;
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                connected = true;
+                backoffMs = 1000;
+                // Anything sent while we were not listening is gone
+                flush("listener connected");
+
+                long lastActivity = System.nanoTime();
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(pollMs);
+                    if (notifications != null && notifications.length > 0) {
+                        for (PGNotification notification : notifications) {
+                            handle(notification.getParameter());
+                        }
+                        lastActivity = System.nanoTime();
+                    } else if (System.nanoTime() - lastActivity > probeNanos) {
+                        try (Statement statement = connection.createStatement()) {
+                            statement.execute("SELECT 1");
+                        }
+                        lastActivity = System.nanoTime();
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Invalidation listener disconnected, retrying in {} ms: {}", backoffMs, e.getMessage());
+            } finally {
+                connected = false;
+                listenConnection = null;
+            }
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+            backoffMs = Math.min(backoffMs * 2, 30000);
+        }
+    }
+
+    void handle(String payload) {
+        int bar = payload.indexOf('|');
+        if (bar < 0) {
+            flush("malformed invalidation");
+            return;
+        }
+        if (payload.startsWith(origin) && bar == origin.length()) {
+            return;
+        }
+        List<Object> events = new ArrayList<>();
+        try {
+            for (String item : payload.substring(bar + 1).split(",")) {
+                String[] parts = item.split(":");
+                Long userId = Long.valueOf(parts[1]);
+                switch (parts[0]) {
+                    case "D" -> events.add(new UserDataChangedEvent(userId, Long.parseLong(parts[2]), true));
+                    case "U" -> events.add(new UserAccountChangedEvent(userId,
+                            parts.length > 3 ? URLDecoder.decode(parts[3], StandardCharsets.UTF_8) : null, true));
+                    case "B" -> {
+                        long budgetId = Long.parseLong(parts[2]);
+                        events.add(new BudgetChangedEvent(userId, budgetId != 0 ? budgetId : null, true));
+                    }
+                    default -> throw new IllegalArgumentException("unknown type " + parts[0]);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Possibly sent by a newer node; evicting everything is always safe
+            flush("unreadable invalidation");
+            return;
+        }
+        events.forEach(eventPublisher::publishEvent);
+        received.increment();
+    }
+
+    private void flush(String reason) {
+        log.info("Flushing local caches: {}", reason);
+        flushes.increment();
+        eventPublisher.publishEvent(new CacheFlushEvent(reason));
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Connection connection = listenConnection;
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // shutting down
+            }
+        }
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+}
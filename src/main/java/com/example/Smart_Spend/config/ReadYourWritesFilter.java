@@ -0,0 +1,44 @@
+package com.example.Smart_Spend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Keeps a session on the primary for a short window after it wrote something,
+ * so a redirect-after-POST never reads stale data from a lagging replica.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String PIN_UNTIL_ATTRIBUTE = "smartspend.readYourWritesUntil";
+
+    private final long windowMs;
+
+    public ReadYourWritesFilter(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        HttpSession session = request.getSession(false);
+        Object pinUntil = session != null ? session.getAttribute(PIN_UNTIL_ATTRIBUTE) : null;
+        ReplicaRoutingDataSource.pinToPrimary(pinUntil instanceof Long until && until > System.currentTimeMillis());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (ReplicaRoutingDataSource.wroteDuringRequest()) {
+                session = request.getSession(false);
+                if (session != null) {
+                    session.setAttribute(PIN_UNTIL_ATTRIBUTE, System.currentTimeMillis() + windowMs);
+                }
+            }
+            ReplicaRoutingDataSource.clearRequestState();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.Smart_Spend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a healthy replica and everything else to the primary.
+ * Must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * so the lookup happens after the transaction's read-only flag has been set. Replicas only
+ * receive reads once a health check has found them within the allowed lag.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    static final String PRIMARY = "primary";
+
+    // Per request: pinned to primary (recent write in this session) / wrote during this request
+    private static final ThreadLocal<Boolean> PINNED = ThreadLocal.withInitial(() -> false);
+    private static final ThreadLocal<Boolean> WROTE = ThreadLocal.withInitial(() -> false);
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger roundRobin = new AtomicInteger();
+    private final double maxLagSeconds;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources, double maxLagSeconds) {
+        this.maxLagSeconds = maxLagSeconds;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            Replica replica = new Replica("replica-" + i, replicaDataSources.get(i));
+            replicas.add(replica);
+            targets.put(replica.key, replica.dataSource);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        if (!inTransaction || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (inTransaction && RequestContextHolder.getRequestAttributes() != null) {
+                WROTE.set(true);
+            }
+            return PRIMARY;
+        }
+        if (PINNED.get() || WROTE.get()) {
+            return PRIMARY;
+        }
+        Replica replica = nextHealthyReplica();
+        return replica != null ? replica.key : PRIMARY;
+    }
+
+    private Replica nextHealthyReplica() {
+        int size = replicas.size();
+        int start = Math.floorMod(roundRobin.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica candidate = replicas.get((start + i) % size);
+            if (candidate.healthy) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.health-check-ms:5000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(2);
+                try (ResultSet rs = statement.executeQuery(
+                        "SELECT CASE WHEN pg_is_in_recovery() " +
+                        "THEN COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) ELSE 0 END")) {
+                    double lag = rs.next() ? rs.getDouble(1) : 0;
+                    healthy = lag <= maxLagSeconds;
+                    if (!healthy) {
+                        log.warn("Replica {} is {}s behind, routing reads to primary", replica.key, lag);
+                    }
+                }
+            } catch (Exception e) {
+                healthy = false;
+                log.warn("Replica {} health check failed: {}", replica.key, e.getMessage());
+            }
+            if (healthy != replica.healthy) {
+                log.info("Replica {} is now {}", replica.key, healthy ? "healthy" : "unhealthy");
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    public Map<String, Boolean> getReplicaHealth() {
+        Map<String, Boolean> health = new HashMap<>();
+        replicas.forEach(r -> health.put(r.key, r.healthy));
+        return health;
+    }
+
+    static void pinToPrimary(boolean pinned) {
+        PINNED.set(pinned);
+    }
+
+    static boolean wroteDuringRequest() {
+        return WROTE.get();
+    }
+
+    static void clearRequestState() {
+        PINNED.remove();
+        WROTE.remove();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final String key;
+        private final DataSource dataSource;
+        // Unknown until the first probe succeeds
+        private volatile boolean healthy;
+
+        private Replica(String key, DataSource dataSource) {
+            this.key = key;
+            this.dataSource = dataSource;
+        }
+    }
+}
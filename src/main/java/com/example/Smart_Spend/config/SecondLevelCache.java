@@ -0,0 +1,114 @@
+package com.example.Smart_Spend.config;
+
+import com.example.Smart_Spend.dto.CacheRegionStats;
+import com.example.Smart_Spend.entity.Budget;
+import com.example.Smart_Spend.entity.User;
+import com.example.Smart_Spend.service.BudgetChangedEvent;
+import com.example.Smart_Spend.service.CacheFlushEvent;
+import com.example.Smart_Spend.service.UserAccountChangedEvent;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.cache.spi.access.NaturalIdDataAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps Hibernate's second-level cache (users, budgets and the budget lookup query) coherent
+ * where Hibernate cannot see the change: writes made on another node, and native bulk
+ * statements such as the budget rollover. Changes made through the entity manager on this
+ * node are already handled by Hibernate itself. Entries are evicted per user; only the budget
+ * lookup results, which cannot be told apart by user, are evicted as a whole region.
+ */
+@Component
+@Slf4j
+public class SecondLevelCache {
+
+    public static final String USERS = "users";
+    public static final String USER_EMAILS = "user-emails";
+    public static final String BUDGETS = "budgets";
+    public static final String BUDGET_LOOKUPS = "budget-lookups";
+
+    private final SessionFactory sessionFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    public SecondLevelCache(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener
+    public void onUserAccountChanged(UserAccountChangedEvent event) {
+        if (event.remote()) {
+            sessionFactory.getCache().evictEntityData(User.class, event.userId());
+            // Emails never change, so the email -> id mapping only goes stale when the user is gone
+            if (event.deletedEmail() != null) {
+                evictNaturalId(event.deletedEmail());
+            }
+        }
+    }
+
+    // After commit, so a concurrent reader cannot put the old rows back before the change is visible
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBudgetChanged(BudgetChangedEvent event) {
+        if (!event.remote() && event.budgetId() != null) {
+            return; // written through this node's entity manager
+        }
+        Cache cache = sessionFactory.getCache();
+        if (event.budgetId() != null) {
+            cache.evictEntityData(Budget.class, event.budgetId());
+        } else if (event.remote()) {
+            // Another node's native statement may have changed any of them; local native
+            // statements only insert or delete, which leave no stale entity behind
+            jdbcTemplate.queryForList("SELECT id FROM budgets WHERE user_id = ?", Long.class, event.userId())
+                    .forEach(id -> cache.evictEntityData(Budget.class, id));
+        }
+        cache.evictQueryRegion(BUDGET_LOOKUPS);
+    }
+
+    private void evictNaturalId(String email) {
+        EntityPersister persister = sessionFactory.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel().getEntityDescriptor(User.class);
+        NaturalIdDataAccess access = persister.getNaturalIdCacheAccessStrategy();
+        if (access == null) {
+            return;
+        }
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            access.evict(access.generateCacheKey(email, persister, (SharedSessionContractImplementor) session));
+        }
+    }
+
+    @EventListener
+    public void onCacheFlush(CacheFlushEvent event) {
+        log.debug("Evicting second-level cache: {}", event.reason());
+        sessionFactory.getCache().evictAllRegions();
+    }
+
+    public boolean isStatisticsEnabled() {
+        return sessionFactory.getStatistics().isStatisticsEnabled();
+    }
+
+    public List<CacheRegionStats> getRegionStats() {
+        Statistics statistics = sessionFactory.getStatistics();
+        List<CacheRegionStats> regions = new ArrayList<>();
+        for (String region : List.of(USERS, USER_EMAILS, BUDGETS, BUDGET_LOOKUPS)) {
+            CacheRegionStatistics stats = statistics.getCacheRegionStatistics(region);
+            if (stats != null) {
+                regions.add(new CacheRegionStats(region, stats.getHitCount(), stats.getMissCount(), stats.getPutCount()));
+            }
+        }
+        return regions;
+    }
+}
@@ -1,6 +1,12 @@
 package com.example.Smart_Spend.config;
 
+import com.example.Smart_Spend.security.BoundedPasswordEncoder;
+import com.example.Smart_Spend.security.RateLimitFilter;
+import com.example.Smart_Spend.security.RateLimitProperties;
+import com.example.Smart_Spend.security.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,14 +16,20 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWriter;
 import org.springframework.security.core.session.SessionRegistry;
-import org.springframework.security.core.session.SessionRegistryImpl;
+
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.springframework.security.config.Customizer.withDefaults;
 
@@ -28,17 +40,38 @@ import static org.springframework.security.config.Customizer.withDefaults;
 public class SecurityConfig {
 
     private final UserDetailsService userDetailsService;
+    private final SessionRegistry sessionRegistry;
 
+    /**
+     * New hashes use {@code app.security.password.encoder}; stored hashes of any known
+     * algorithm still match, and bare legacy BCrypt hashes are treated as BCrypt.
+     * Outdated hashes are re-encoded on the next successful login.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${app.security.password.encoder:bcrypt}") String encoderId,
+                                           @Value("${app.security.password.bcrypt-strength:12}") int bcryptStrength,
+                                           @Value("${app.security.password.hash-threads:2}") int hashThreads,
+                                           @Value("${app.security.password.queue-capacity:50}") int queueCapacity,
+                                           @Value("${app.security.password.timeout-ms:10000}") long timeoutMs) {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        encoders.put("bcrypt", bcrypt);
+        encoders.put("pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(encoderId, encoders);
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        return new BoundedPasswordEncoder(delegating, hashThreads, queueCapacity, timeoutMs, meterRegistry);
     }
 
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        if (userDetailsService instanceof UserDetailsPasswordService passwordService) {
+            authProvider.setUserDetailsPasswordService(passwordService);
+        }
         authProvider.setHideUserNotFoundExceptions(false);
         return authProvider;
     }
@@ -61,8 +94,13 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, DaoAuthenticationProvider authenticationProvider,
+                                           RateLimiter rateLimiter, RateLimitProperties rateLimitProperties) throws Exception {
         http
+            // Rate limiting (before login processing, after the security context is loaded)
+            .addFilterBefore(new RateLimitFilter(rateLimiter, rateLimitProperties),
+                    UsernamePasswordAuthenticationFilter.class)
+
             // CSRF
             .csrf(csrf -> csrf.ignoringRequestMatchers("/api/**"))
 
@@ -92,7 +130,7 @@ public class SecurityConfig {
                         "/favicon.ico",
                         "/error"
                 ).permitAll()
-                .requestMatchers("/admin/**").hasRole("ADMIN")
+                .requestMatchers("/admin/**", "/actuator/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
 
@@ -121,7 +159,7 @@ public class SecurityConfig {
             .sessionManagement(session -> session
                 .maximumSessions(2)
                 .maxSessionsPreventsLogin(false)
-                .sessionRegistry(sessionRegistry())
+                .sessionRegistry(sessionRegistry)
             )
 
             // Exceptions
@@ -130,13 +168,8 @@ public class SecurityConfig {
             )
 
             // Authentication provider
-            .authenticationProvider(authenticationProvider());
+            .authenticationProvider(authenticationProvider);
 
         return http.build();
     }
-
-    @Bean
-    public SessionRegistry sessionRegistry() {
-        return new SessionRegistryImpl();
-    }
 }
\ No newline at end of file
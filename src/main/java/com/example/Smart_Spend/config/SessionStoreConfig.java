@@ -0,0 +1,51 @@
+package com.example.Smart_Spend.config;
+
+import com.example.Smart_Spend.security.DatabaseSessionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.core.session.SessionRegistryImpl;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+import org.springframework.session.security.SpringSessionBackedSessionRegistry;
+
+import java.time.Duration;
+
+/**
+ * Selects the HTTP session store with {@code app.session.store}:
+ * {@code database} (default, shared across nodes) or {@code memory} (servlet container, single node).
+ */
+@Configuration
+public class SessionStoreConfig {
+
+    @Configuration
+    @EnableSpringHttpSession
+    @ConditionalOnProperty(name = "app.session.store", havingValue = "database", matchIfMissing = true)
+    static class DatabaseSessionStoreConfig {
+
+        @Bean
+        public DatabaseSessionRepository sessionRepository(JdbcTemplate jdbcTemplate,
+                                                           @Value("${server.servlet.session.timeout:30m}") Duration timeout,
+                                                           @Value("${app.session.cleanup-batch-size:1000}") int sweepBatchSize) {
+            return new DatabaseSessionRepository(jdbcTemplate, timeout, sweepBatchSize);
+        }
+
+        // Concurrent-session limits are enforced against the shared table, so they hold across nodes
+        @Bean
+        public SessionRegistry sessionRegistry(DatabaseSessionRepository sessionRepository) {
+            return new SpringSessionBackedSessionRegistry<>(sessionRepository);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "app.session.store", havingValue = "memory")
+    static class InMemorySessionStoreConfig {
+
+        @Bean
+        public SessionRegistry sessionRegistry() {
+            return new SessionRegistryImpl();
+        }
+    }
+}
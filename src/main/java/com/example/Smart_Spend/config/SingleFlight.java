@@ -0,0 +1,84 @@
+package com.example.Smart_Spend.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Request coalescing: concurrent callers asking for the same (name, key) share one
+ * in-flight computation and receive the same result object. Nothing is cached once the
+ * computation finishes, but a caller that joins a computation started before its own write
+ * committed gets a result without that write. Only use it where that is acceptable, such as
+ * admin aggregates; per-user reads that must show the user's own changes must not coalesce.
+ *
+ * Shared results are handed to several callers and must be treated as read-only.
+ * A follower waits at most {@code app.single-flight.max-wait-ms} for the leader, then
+ * runs the work itself, so a stuck leader never holds up more than its own request.
+ */
+@Component
+public class SingleFlight {
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final long maxWaitMs;
+
+    public SingleFlight(MeterRegistry meterRegistry,
+                        @Value("${app.single-flight.max-wait-ms:5000}") long maxWaitMs) {
+        this.meterRegistry = meterRegistry;
+        this.maxWaitMs = maxWaitMs;
+        Gauge.builder("smartspend.singleflight.in_flight", inFlight, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * @param name low-cardinality operation name, used as the metric tag
+     * @param key  the arguments that make two calls identical
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String name, Object key, Supplier<T> work) {
+        String flightKey = name + '|' + key;
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, mine);
+
+        if (existing != null) {
+            meterRegistry.counter("smartspend.singleflight.calls", "name", name, "role", "coalesced").increment();
+            try {
+                return (T) existing.get(maxWaitMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                meterRegistry.counter("smartspend.singleflight.calls", "name", name, "role", "timed_out").increment();
+                return work.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(name + " was interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        meterRegistry.counter("smartspend.singleflight.calls", "name", name, "role", "leader").increment();
+        try {
+            T result = work.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, mine);
+        }
+    }
+}
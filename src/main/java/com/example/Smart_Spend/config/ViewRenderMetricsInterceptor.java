@@ -0,0 +1,43 @@
+package com.example.Smart_Spend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times view rendering per template: postHandle runs just before the view renders,
+ * afterCompletion just after.
+ */
+@RequiredArgsConstructor
+public class ViewRenderMetricsInterceptor implements HandlerInterceptor {
+
+    private static final String START = ViewRenderMetricsInterceptor.class.getName() + ".start";
+    private static final String VIEW = ViewRenderMetricsInterceptor.class.getName() + ".view";
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (modelAndView == null || modelAndView.getViewName() == null
+                || modelAndView.getViewName().startsWith("redirect:")) {
+            return;
+        }
+        request.setAttribute(VIEW, modelAndView.getViewName());
+        request.setAttribute(START, System.nanoTime());
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(START) instanceof Long start && request.getAttribute(VIEW) instanceof String view) {
+            meterRegistry.timer("smartspend.view.render", "template", view)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
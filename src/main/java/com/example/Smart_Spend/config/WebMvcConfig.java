@@ -0,0 +1,28 @@
+package com.example.Smart_Spend.config;
+
+import com.example.Smart_Spend.service.DataVersionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    // Optional so MVC slice tests, which have no services, still start
+    private final ObjectProvider<DataVersionService> dataVersionService;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        meterRegistry.ifAvailable(meters -> registry
+                .addInterceptor(new ViewRenderMetricsInterceptor(meters)));
+        dataVersionService.ifAvailable(service -> registry
+                .addInterceptor(new ConditionalPageInterceptor(service))
+                .addPathPatterns("/dashboard", "/expenses", "/budgets", "/reports", "/reports/monthly",
+                        "/api/dashboard/**"));
+    }
+}
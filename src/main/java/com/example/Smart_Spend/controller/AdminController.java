@@ -1,9 +1,14 @@
 package com.example.Smart_Spend.controller;
 
+import com.example.Smart_Spend.config.SecondLevelCache;
+import com.example.Smart_Spend.dto.UserDetailsView;
+import com.example.Smart_Spend.dto.UserSearchPage;
 import com.example.Smart_Spend.entity.User;
-import com.example.Smart_Spend.entity.Expense;
-import com.example.Smart_Spend.entity.Budget;
+import com.example.Smart_Spend.entity.MaintenanceRun;
 import com.example.Smart_Spend.service.AdminService;
+import com.example.Smart_Spend.service.ClusterJobService;
+import com.example.Smart_Spend.service.MaintenanceService;
+import com.example.Smart_Spend.service.UserDeletionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -12,9 +17,10 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.util.List;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 @Controller
@@ -24,6 +30,10 @@ import java.util.Map;
 public class AdminController {
 
     private final AdminService adminService;
+    private final MaintenanceService maintenanceService;
+    private final ClusterJobService clusterJobService;
+    private final UserDeletionService userDeletionService;
+    private final SecondLevelCache secondLevelCache;
 
     @GetMapping("/dashboard")
     public String adminDashboard(Model model) {
@@ -34,9 +44,20 @@ public class AdminController {
     }
 
     @GetMapping("/users")
-    public String manageUsers(Model model) {
-        List<User> users = adminService.getAllUsers();
-        model.addAttribute("users", users);
+    public String manageUsers(@RequestParam(required = false) String q,
+                              @RequestParam(required = false) User.Role role,
+                              @RequestParam(required = false) Boolean verified,
+                              @RequestParam(required = false) String cursor,
+                              @RequestParam(defaultValue = "25") int size,
+                              Model model) {
+        UserSearchPage page = adminService.searchUsers(q, role, verified, cursor, size);
+        model.addAttribute("users", page.users());
+        model.addAttribute("nextCursor", page.nextCursor());
+        model.addAttribute("userCounts", adminService.getUserCounts());
+        model.addAttribute("q", q);
+        model.addAttribute("role", role);
+        model.addAttribute("verified", verified);
+        model.addAttribute("size", size);
         model.addAttribute("title", "User Management");
         return "admin/admin-users";
     }
@@ -56,7 +77,7 @@ public class AdminController {
     public String deleteUser(@PathVariable Long id, RedirectAttributes redirectAttributes) {
         try {
             adminService.deleteUser(id);
-            redirectAttributes.addFlashAttribute("message", "User deleted successfully!");
+            redirectAttributes.addFlashAttribute("message", "User deletion scheduled. Their data is being removed in the background.");
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", "Error deleting user: " + e.getMessage());
         }
@@ -66,15 +87,14 @@ public class AdminController {
     @GetMapping("/users/{id}/details")
     public String userDetails(@PathVariable Long id, Model model) {
         try {
-            User user = adminService.getUserById(id);
-            List<Expense> expenses = adminService.getUserExpenses(id);
-            List<Budget> budgets = adminService.getUserBudgets(id);
-            Map<String, Object> userStats = adminService.getUserStats(id);
+            UserDetailsView details = adminService.getUserDetails(id);
+            User user = details.user();
 
             model.addAttribute("user", user);
-            model.addAttribute("expenses", expenses);
-            model.addAttribute("budgets", budgets);
-            model.addAttribute("userStats", userStats);
+            model.addAttribute("expenses", details.recentExpenses());
+            model.addAttribute("expenseCount", details.expenseCount());
+            model.addAttribute("budgets", details.budgets());
+            model.addAttribute("userStats", details);
             model.addAttribute("title", "User Details - " + user.getFirstName() + " " + user.getLastName());
             return "admin/admin-user-details";
         } catch (Exception e) {
@@ -91,24 +111,32 @@ public class AdminController {
     }
 
     @GetMapping("/reports/export")
-    public ResponseEntity<String> exportReports(@RequestParam String type) {
-        try {
-            String csvContent = adminService.exportReport(type);
-            String filename = type + "_report_" + System.currentTimeMillis() + ".csv";
-
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+    public ResponseEntity<StreamingResponseBody> exportReports(@RequestParam String type) {
+        if (!AdminService.isExportType(type)) {
+            return ResponseEntity.badRequest()
                     .contentType(MediaType.TEXT_PLAIN)
-                    .body(csvContent);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body("Error generating report: " + e.getMessage());
+                    .body(out -> out.write("Invalid report type".getBytes(StandardCharsets.UTF_8)));
         }
+        String filename = type.toLowerCase() + "_report_" + System.currentTimeMillis() + ".csv";
+
+        // Written to the response as rows are read, on an MVC async thread
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(out -> adminService.exportReport(type, out));
     }
 
     @GetMapping("/system")
     public String systemInfo(Model model) {
         Map<String, Object> systemInfo = adminService.getSystemInfo();
         model.addAttribute("systemInfo", systemInfo);
+        model.addAttribute("maintenanceRuns", maintenanceService.getRecentRuns());
+        model.addAttribute("deletionJobs", userDeletionService.getRecentJobs());
+        model.addAttribute("jobRuns", clusterJobService.getRecentRuns());
+        model.addAttribute("jobLeases", clusterJobService.getLeases());
+        model.addAttribute("nodeId", clusterJobService.getNodeId());
+        model.addAttribute("cacheStatsEnabled", secondLevelCache.isStatisticsEnabled());
+        model.addAttribute("cacheRegions", secondLevelCache.getRegionStats());
         model.addAttribute("title", "System Information");
         return "admin/system";
     }
@@ -116,8 +144,10 @@ public class AdminController {
     @PostMapping("/system/cleanup")
     public String systemCleanup(RedirectAttributes redirectAttributes) {
         try {
-            adminService.performSystemCleanup();
-            redirectAttributes.addFlashAttribute("message", "System cleanup completed successfully!");
+            long rows = adminService.performSystemCleanup().stream()
+                    .mapToLong(MaintenanceRun::getRowsAffected)
+                    .sum();
+            redirectAttributes.addFlashAttribute("message", "System cleanup completed successfully! " + rows + " rows cleaned.");
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", "Error during cleanup: " + e.getMessage());
         }
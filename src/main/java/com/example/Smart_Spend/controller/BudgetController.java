@@ -1,7 +1,9 @@
 package com.example.Smart_Spend.controller;
 
-import com.example.Smart_Spend.entity.User;
 import com.example.Smart_Spend.entity.Budget;
+import com.example.Smart_Spend.security.AuthenticatedUser;
+import com.example.Smart_Spend.security.CurrentUser;
+import com.example.Smart_Spend.service.BudgetProgressService;
 import com.example.Smart_Spend.service.BudgetService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -14,7 +16,6 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import jakarta.validation.Valid;
 import java.math.BigDecimal;
 import java.time.YearMonth;
-import java.util.List;
 import java.util.Optional;
 
 @Controller
@@ -23,12 +24,17 @@ import java.util.Optional;
 public class BudgetController {
 
     private final BudgetService budgetService;
+    private final BudgetProgressService budgetProgressService;
+    private final CurrentUser currentUser;
 
     @GetMapping
-    public String listBudgets(@AuthenticationPrincipal User user, Model model) {
+    public String listBudgets(@AuthenticationPrincipal AuthenticatedUser user, Model model) {
         try {
-            List<Budget> budgets = budgetService.getBudgetsByUser(user.getId());
-            model.addAttribute("budgets", budgets);
+            // One grouped query for all budgets with their spend; cached until the next write
+            model.addAttribute("budgets", budgetProgressService.getAllProgress(user.getId()));
+            model.addAttribute("rolloverEnabled", budgetService.isRolloverEnabled(user.getId()));
+            budgetService.getMonthSummary(user.getId(), YearMonth.now().minusMonths(1))
+                    .ifPresent(summary -> model.addAttribute("lastMonthSummary", summary));
             model.addAttribute("title", "Budget Management");
             return "budgets/list";
         } catch (Exception e) {
@@ -37,6 +43,21 @@ public class BudgetController {
         }
     }
 
+    @PostMapping("/rollover")
+    public String updateRollover(@RequestParam(defaultValue = "false") boolean enabled,
+                                 @AuthenticationPrincipal AuthenticatedUser user,
+                                 RedirectAttributes redirectAttributes) {
+        try {
+            budgetService.setRolloverEnabled(user.getId(), enabled);
+            redirectAttributes.addFlashAttribute("message", enabled
+                    ? "Budgets will be carried into each new month"
+                    : "Budgets will no longer be carried into new months");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", "Error updating rollover: " + e.getMessage());
+        }
+        return "redirect:/budgets";
+    }
+
     @GetMapping("/new")
     public String newBudgetForm(Model model) {
         try {
@@ -61,7 +82,7 @@ public class BudgetController {
     @PostMapping("/new")
     public String createBudget(@Valid @ModelAttribute Budget budget, 
                               BindingResult result,
-                              @AuthenticationPrincipal User user, 
+                              @AuthenticationPrincipal AuthenticatedUser user, 
                               RedirectAttributes redirectAttributes) {
         if (result.hasErrors()) {
             return "budgets/form";
@@ -79,7 +100,7 @@ public class BudgetController {
                 budget.setYear(YearMonth.now().getYear());
             }
             
-            budget.setUser(user);
+            budget.setUser(currentUser.getReference());
             budgetService.saveBudget(budget);
             redirectAttributes.addFlashAttribute("message", "Budget created successfully!");
             return "redirect:/budgets";
@@ -113,7 +134,7 @@ public class BudgetController {
     @PostMapping("/add")
     public String createBudgetFromAdd(@Valid @ModelAttribute Budget budget, 
                                      BindingResult result,
-                                     @AuthenticationPrincipal User user, 
+                                     @AuthenticationPrincipal AuthenticatedUser user, 
                                      RedirectAttributes redirectAttributes) {
         if (result.hasErrors()) {
             return "budgets/add";
@@ -131,7 +152,7 @@ public class BudgetController {
                 budget.setYear(YearMonth.now().getYear());
             }
             
-            budget.setUser(user);
+            budget.setUser(currentUser.getReference());
             budgetService.saveBudget(budget);
             redirectAttributes.addFlashAttribute("message", "Budget created successfully!");
             return "redirect:/budgets";
@@ -143,7 +164,7 @@ public class BudgetController {
 
     @GetMapping("/{id}/edit")
     public String editBudgetForm(@PathVariable Long id, 
-                                @AuthenticationPrincipal User user, 
+                                @AuthenticationPrincipal AuthenticatedUser user, 
                                 Model model,
                                 RedirectAttributes redirectAttributes) {
         try {
@@ -179,7 +200,7 @@ public class BudgetController {
     public String updateBudget(@PathVariable Long id, 
                               @Valid @ModelAttribute Budget budget,
                               BindingResult result, 
-                              @AuthenticationPrincipal User user,
+                              @AuthenticationPrincipal AuthenticatedUser user,
                               RedirectAttributes redirectAttributes) {
         if (result.hasErrors()) {
             return "budgets/form";
@@ -201,7 +222,7 @@ public class BudgetController {
                 }
                 
                 budget.setId(id);
-                budget.setUser(user);
+                budget.setUser(currentUser.getReference());
                 budgetService.saveBudget(budget);
                 redirectAttributes.addFlashAttribute("message", "Budget updated successfully!");
             } else {
@@ -216,7 +237,7 @@ public class BudgetController {
 
     @PostMapping("/{id}/delete")
     public String deleteBudget(@PathVariable Long id, 
-                              @AuthenticationPrincipal User user,
+                              @AuthenticationPrincipal AuthenticatedUser user,
                               RedirectAttributes redirectAttributes) {
         try {
             Optional<Budget> budgetOpt = budgetService.findById(id);
@@ -0,0 +1,53 @@
+package com.example.Smart_Spend.controller;
+
+import com.example.Smart_Spend.dto.BudgetProgress;
+import com.example.Smart_Spend.dto.CategoryTotal;
+import com.example.Smart_Spend.dto.RecentTransaction;
+import com.example.Smart_Spend.security.AuthenticatedUser;
+import com.example.Smart_Spend.service.BudgetProgressService;
+import com.example.Smart_Spend.service.ExpenseService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Dashboard widgets. The page shell renders without data and the browser fetches
+ * these in parallel, so each widget is served by its own request thread and the
+ * slowest query no longer holds back the first paint.
+ */
+@RestController
+@RequestMapping("/api/dashboard")
+@RequiredArgsConstructor
+public class DashboardApiController {
+
+    private static final int MAX_RECENT = 20;
+
+    private final ExpenseService expenseService;
+    private final BudgetProgressService budgetProgressService;
+
+    @GetMapping("/recent-transactions")
+    public List<RecentTransaction> recentTransactions(@AuthenticationPrincipal AuthenticatedUser user,
+                                                     @RequestParam(defaultValue = "5") int limit) {
+        return expenseService.getRecentTransactions(user.getId(), Math.max(1, Math.min(limit, MAX_RECENT)));
+    }
+
+    @GetMapping("/category-breakdown")
+    public List<CategoryTotal> categoryBreakdown(@AuthenticationPrincipal AuthenticatedUser user) {
+        YearMonth month = YearMonth.now();
+        return expenseService.getCategoryWiseExpenses(user.getId(), month.getMonthValue(), month.getYear()).stream()
+                .map(row -> new CategoryTotal((String) row[0], (BigDecimal) row[1]))
+                .toList();
+    }
+
+    @GetMapping("/budget-progress")
+    public List<BudgetProgress> budgetProgress(@AuthenticationPrincipal AuthenticatedUser user) {
+        return budgetProgressService.getProgress(user.getId(), YearMonth.now());
+    }
+}
@@ -1,10 +1,12 @@
 package com.example.Smart_Spend.controller;
 
-import com.example.Smart_Spend.entity.User;
 import com.example.Smart_Spend.entity.Expense;
+import com.example.Smart_Spend.security.AuthenticatedUser;
+import com.example.Smart_Spend.security.CurrentUser;
 import com.example.Smart_Spend.service.ExpenseService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -13,6 +15,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import jakarta.validation.Valid;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,9 +26,13 @@ import java.util.Optional;
 public class ExpenseController {
 
     private final ExpenseService expenseService;
+    private final CurrentUser currentUser;
 
+    // ?month=yyyy-MM shows one month, read from the archive if it is an archived one
     @GetMapping
-    public String listExpenses(@AuthenticationPrincipal User user, Model model) {
+    public String listExpenses(@AuthenticationPrincipal AuthenticatedUser user,
+                               @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+                               Model model) {
         if (user == null) {
             log.error("User is null in listExpenses - authentication failed");
             return "redirect:/login";
@@ -33,8 +40,12 @@ public class ExpenseController {
         
         log.debug("Loading expenses for user: {} (ID: {})", user.getEmail(), user.getId());
         
-        List<Expense> expenses = expenseService.getExpensesByUser(user.getId());
+        List<Expense> expenses = month != null
+                ? expenseService.getExpensesForMonth(user.getId(), month)
+                : expenseService.getExpensesByUser(user.getId());
         model.addAttribute("expenses", expenses);
+        model.addAttribute("month", month);
+        model.addAttribute("archivedMonths", expenseService.getArchivedMonths(user.getId()));
         model.addAttribute("title", "Expenses");
         model.addAttribute("user", user);
         return "expenses/list";
@@ -52,7 +63,7 @@ public class ExpenseController {
     @PostMapping({"/new", "/add"})
     public String createExpense(@Valid @ModelAttribute Expense expense, 
                               BindingResult result,
-                              @AuthenticationPrincipal User user, 
+                              @AuthenticationPrincipal AuthenticatedUser user, 
                               RedirectAttributes redirectAttributes) {
         if (result.hasErrors()) {
             return "expenses/form";
@@ -63,7 +74,7 @@ public class ExpenseController {
             return "redirect:/login";
         }
 
-        expense.setUser(user);
+        expense.setUser(currentUser.getReference());
         expenseService.saveExpense(expense);
         redirectAttributes.addFlashAttribute("message", "Expense added successfully!");
         return "redirect:/expenses";
@@ -71,7 +82,7 @@ public class ExpenseController {
 
     @GetMapping("/{id}/edit")
     public String editExpenseForm(@PathVariable Long id, 
-                                @AuthenticationPrincipal User user, 
+                                @AuthenticationPrincipal AuthenticatedUser user, 
                                 Model model) {
         if (user == null) {
             log.error("User is null in editExpenseForm - authentication failed");
@@ -94,7 +105,7 @@ public class ExpenseController {
     public String updateExpense(@PathVariable Long id, 
                               @Valid @ModelAttribute Expense expense,
                               BindingResult result, 
-                              @AuthenticationPrincipal User user,
+                              @AuthenticationPrincipal AuthenticatedUser user,
                               RedirectAttributes redirectAttributes) {
         if (result.hasErrors()) {
             return "expenses/form";
@@ -108,7 +119,7 @@ public class ExpenseController {
         Optional<Expense> existingExpense = expenseService.findById(id);
         if (existingExpense.isPresent() && existingExpense.get().getUser().getId().equals(user.getId())) {
             expense.setId(id);
-            expense.setUser(user);
+            expense.setUser(currentUser.getReference());
             expenseService.saveExpense(expense);
             redirectAttributes.addFlashAttribute("message", "Expense updated successfully!");
         } else {
@@ -120,7 +131,7 @@ public class ExpenseController {
 
     @PostMapping("/{id}/delete")
     public String deleteExpense(@PathVariable Long id, 
-                              @AuthenticationPrincipal User user,
+                              @AuthenticationPrincipal AuthenticatedUser user,
                               RedirectAttributes redirectAttributes) {
         if (user == null) {
             log.error("User is null in deleteExpense - authentication failed");
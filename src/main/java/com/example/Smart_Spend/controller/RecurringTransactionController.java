@@ -0,0 +1,76 @@
+package com.example.Smart_Spend.controller;
+
+import com.example.Smart_Spend.entity.RecurringTransaction;
+import com.example.Smart_Spend.security.AuthenticatedUser;
+import com.example.Smart_Spend.security.CurrentUser;
+import com.example.Smart_Spend.service.RecurringTransactionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import jakarta.validation.Valid;
+import java.time.LocalDate;
+
+@Controller
+@RequestMapping("/recurring")
+@RequiredArgsConstructor
+@Slf4j
+public class RecurringTransactionController {
+
+    private final RecurringTransactionService recurringService;
+    private final CurrentUser currentUser;
+
+    @GetMapping
+    public String listRules(@AuthenticationPrincipal AuthenticatedUser user, Model model) {
+        RecurringTransaction rule = new RecurringTransaction();
+        rule.setStartDate(LocalDate.now());
+        model.addAttribute("rule", rule);
+        return showList(user, model);
+    }
+
+    @PostMapping
+    public String createRule(@Valid @ModelAttribute("rule") RecurringTransaction rule,
+                             BindingResult result,
+                             @AuthenticationPrincipal AuthenticatedUser user,
+                             Model model,
+                             RedirectAttributes redirectAttributes) {
+        if (result.hasErrors()) {
+            return showList(user, model);
+        }
+
+        try {
+            recurringService.create(rule, currentUser.getReference());
+            redirectAttributes.addFlashAttribute("message", "Recurring transaction added!");
+            return "redirect:/recurring";
+        } catch (Exception e) {
+            model.addAttribute("error", "Error saving recurring transaction: " + e.getMessage());
+            return showList(user, model);
+        }
+    }
+
+    @PostMapping("/{id}/delete")
+    public String deleteRule(@PathVariable Long id,
+                             @AuthenticationPrincipal AuthenticatedUser user,
+                             RedirectAttributes redirectAttributes) {
+        if (recurringService.delete(id, user.getId())) {
+            redirectAttributes.addFlashAttribute("message", "Recurring transaction stopped");
+        } else {
+            log.warn("User {} attempted to delete recurring rule {} that doesn't belong to them",
+                    user.getEmail(), id);
+            redirectAttributes.addFlashAttribute("error", "Recurring transaction not found or access denied");
+        }
+        return "redirect:/recurring";
+    }
+
+    private String showList(AuthenticatedUser user, Model model) {
+        model.addAttribute("rules", recurringService.getRulesByUser(user.getId()));
+        model.addAttribute("frequencies", RecurringTransaction.Frequency.values());
+        model.addAttribute("title", "Recurring Transactions");
+        return "recurring/list";
+    }
+}
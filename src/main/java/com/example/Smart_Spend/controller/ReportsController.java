@@ -1,6 +1,7 @@
 package com.example.Smart_Spend.controller;
 
-import com.example.Smart_Spend.entity.User;
+import com.example.Smart_Spend.config.FragmentCache;
+import com.example.Smart_Spend.security.AuthenticatedUser;
 import com.example.Smart_Spend.service.ExpenseService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/reports")
@@ -19,9 +21,10 @@ import java.util.List;
 public class ReportsController {
 
     private final ExpenseService expenseService;
+    private final FragmentCache fragmentCache;
 
     @GetMapping
-    public String showReports(@AuthenticationPrincipal User user, Model model,
+    public String showReports(@AuthenticationPrincipal AuthenticatedUser user, Model model,
                              @RequestParam(defaultValue = "0") int month,
                              @RequestParam(defaultValue = "0") int year) {
         if (user == null) {
@@ -39,10 +42,14 @@ public class ReportsController {
         log.debug("Loading reports for user: {} for {}/{}", user.getEmail(), month, year);
 
         try {
-            // Get category-wise expenses
-            List<Object[]> categoryExpenses = expenseService.getCategoryWiseExpenses(user.getId(), month, year);
+            // Category-wise expenses, rendered once per data version; a hit skips the query
+            int selectedMonth = month;
+            int selectedYear = year;
+            String categoryBreakdownHtml = fragmentCache.render("reports/index", "categoryBreakdown", user.getId(),
+                    selectedYear + "-" + selectedMonth, () -> Map.of("categoryExpenses",
+                            expenseService.getCategoryWiseExpenses(user.getId(), selectedMonth, selectedYear)));
             
-            model.addAttribute("categoryExpenses", categoryExpenses);
+            model.addAttribute("categoryBreakdownHtml", categoryBreakdownHtml);
             model.addAttribute("selectedMonth", month);
             model.addAttribute("selectedYear", year);
             model.addAttribute("title", "Expense Reports");
@@ -57,7 +64,7 @@ public class ReportsController {
     }
 
     @GetMapping("/monthly")
-    public String monthlyReport(@AuthenticationPrincipal User user, Model model,
+    public String monthlyReport(@AuthenticationPrincipal AuthenticatedUser user, Model model,
                                @RequestParam int month, @RequestParam int year) {
         if (user == null) {
             return "redirect:/login";
@@ -0,0 +1,23 @@
+package com.example.Smart_Spend.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Budget versus actual spending for one category in one month, as computed by
+ * {@link com.example.Smart_Spend.service.BudgetProgressService}.
+ */
+public record BudgetProgress(Long budgetId, String category, int month, int year,
+                             BigDecimal budget, BigDecimal spent, BigDecimal remaining,
+                             int percentUsed, BigDecimal projectedSpend, Status status) {
+
+    public enum Status {
+        /** Under 80% used and on track. */
+        HEALTHY,
+        /** 80% or more used. */
+        WARNING,
+        /** Not over yet, but the current pace ends the month over budget. */
+        DANGER,
+        /** Spent more than the budget. */
+        EXCEEDED
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.Smart_Spend.dto;
+
+/**
+ * Hit, miss and put counts of one Hibernate second-level cache region since startup,
+ * as reported by {@link com.example.Smart_Spend.config.SecondLevelCache}.
+ */
+public record CacheRegionStats(String region, long hits, long misses, long puts) {
+
+    public int hitPercent() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (int) (100 * hits / lookups);
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.Smart_Spend.dto;
+
+import java.math.BigDecimal;
+
+public record CategoryTotal(String category, BigDecimal amount) {
+}
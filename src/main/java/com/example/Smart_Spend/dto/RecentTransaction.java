@@ -0,0 +1,13 @@
+package com.example.Smart_Spend.dto;
+
+import com.example.Smart_Spend.entity.Expense;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Dashboard widget row: the fields the recent-transactions list shows, nothing more.
+ */
+public record RecentTransaction(Long id, String title, String category, BigDecimal amount,
+                                Expense.TransactionType type, LocalDate transactionDate) {
+}
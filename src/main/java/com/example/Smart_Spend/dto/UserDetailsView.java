@@ -0,0 +1,20 @@
+package com.example.Smart_Spend.dto;
+
+import com.example.Smart_Spend.entity.Budget;
+import com.example.Smart_Spend.entity.User;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Everything the admin user-details page shows, read in one transaction so the
+ * connection is back in the pool before the page renders.
+ */
+public record UserDetailsView(User user, List<RecentTransaction> recentExpenses, long expenseCount,
+                              List<Budget> budgets, BigDecimal totalExpenses, BigDecimal totalIncome,
+                              BigDecimal currentMonthExpenses) {
+
+    public BigDecimal balance() {
+        return totalIncome.subtract(totalExpenses);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.Smart_Spend.dto;
+
+import com.example.Smart_Spend.entity.User;
+
+import java.util.List;
+
+/**
+ * One keyset page of the admin user search. {@code nextCursor} is null on the last page.
+ */
+public record UserSearchPage(List<User> users, String nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.Smart_Spend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * A month of expenses moved out of the database into a segment file by ExpenseArchiveService.
+ * Re-archiving the month (late rows, deleted users) writes a new version under a new file name.
+ */
+@Entity
+@Table(name = "archived_months", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_archived_months_period", columnNames = {"year", "month"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedMonth {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Integer year;
+
+    @Column(nullable = false)
+    private Integer month;
+
+    @Column(nullable = false)
+    private int version;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+
+    @Column(name = "user_count", nullable = false)
+    private int userCount;
+
+    @Column(name = "file_bytes", nullable = false)
+    private long fileBytes;
+
+    @Column(name = "archived_at")
+    private LocalDateTime archivedAt = LocalDateTime.now();
+
+    public YearMonth getPeriod() {
+        return YearMonth.of(year, month);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.Smart_Spend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one partition (users with {@code id % partitionCount = partitionNo}) of the
+ * month-end budget rollover into {@code year}/{@code month}. The cursor is saved in the
+ * same transaction as each chunk, so a restarted run continues after the last committed user.
+ */
+@Entity
+@Table(name = "budget_rollover_partitions", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_budget_rollover_partition", columnNames = {"year", "month", "partition_no"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BudgetRolloverPartition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Integer year;
+
+    @Column(nullable = false)
+    private Integer month;
+
+    @Column(name = "partition_no", nullable = false)
+    private int partitionNo;
+
+    @Column(name = "partition_count", nullable = false)
+    private int partitionCount;
+
+    @Column(name = "last_user_id", nullable = false)
+    private long lastUserId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.PENDING;
+
+    @Column(name = "users_processed")
+    private long usersProcessed;
+
+    @Column(name = "budgets_copied")
+    private long budgetsCopied;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    @PreUpdate
+    public void preUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+}
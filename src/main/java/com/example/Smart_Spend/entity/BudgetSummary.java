@@ -0,0 +1,50 @@
+package com.example.Smart_Spend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Month-end budget performance of one user, written by the rollover job once the month is over.
+ */
+@Entity
+@Table(name = "budget_summaries", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_budget_summaries_user_period", columnNames = {"user_id", "year", "month"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BudgetSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Integer year;
+
+    @Column(nullable = false)
+    private Integer month;
+
+    @Column(name = "budget_count", nullable = false)
+    private int budgetCount;
+
+    @Column(name = "over_budget_count", nullable = false)
+    private int overBudgetCount;
+
+    @Column(name = "total_budget", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalBudget = BigDecimal.ZERO;
+
+    @Column(name = "total_spent", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalSpent = BigDecimal.ZERO;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
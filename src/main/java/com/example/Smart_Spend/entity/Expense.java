@@ -4,11 +4,15 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
+// Range-partitioned by month on transaction_date. The primary key (id, transaction_date), the id
+// sequence and idx_expenses_user_date are maintained by ExpensePartitionService, not ddl-auto.
 @Entity
 @Table(name = "expenses")
 @Data
@@ -39,8 +43,16 @@ public class Expense {
     @Column(columnDefinition = "TEXT")
     private String description;
     
+    // Set on occurrences generated from a RecurringTransaction; unique with transaction_date
+    // (schema.sql), which makes materializing an occurrence idempotent
+    @Column(name = "recurring_id")
+    private Long recurringId;
+    
+    // Kept out of toString/equals: touching a detached proxy would need a session (open-in-view is off)
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User user;
     
     @Column(name = "created_at")
@@ -0,0 +1,49 @@
+package com.example.Smart_Spend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Totals of one user's archived expenses per month, category and type. Stands in for the rows
+ * of an archived month in every aggregate; rewritten whenever the month's segment is.
+ */
+@Entity
+@Table(name = "expense_month_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_expense_month_rollups_key",
+                columnNames = {"user_id", "year", "month", "category", "type"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseMonthRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Integer year;
+
+    @Column(nullable = false)
+    private Integer month;
+
+    @Column(nullable = false)
+    private String category;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Expense.TransactionType type;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal total = BigDecimal.ZERO;
+
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+}
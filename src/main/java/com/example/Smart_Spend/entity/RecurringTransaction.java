@@ -0,0 +1,116 @@
+package com.example.Smart_Spend.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * A rule that turns into one {@link Expense} per occurrence. {@code nextRunDate} is the
+ * next occurrence not yet materialized; the index on it is the due queue the scheduler
+ * pops from. It is null once the rule has ended.
+ */
+@Entity
+@Table(name = "recurring_transactions", indexes = {
+        @Index(name = "idx_recurring_next_run", columnList = "next_run_date"),
+        @Index(name = "idx_recurring_user", columnList = "user_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecurringTransaction {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank
+    @Column(nullable = false)
+    private String title;
+
+    @NotNull
+    @DecimalMin("0.01")
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @NotBlank
+    @Column(nullable = false)
+    private String category;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Expense.TransactionType type = Expense.TransactionType.EXPENSE;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Frequency frequency = Frequency.MONTHLY;
+
+    @NotNull
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    // Inclusive; null runs forever
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    @Column(name = "end_date")
+    private LocalDate endDate;
+
+    @Column(name = "next_run_date")
+    private LocalDate nextRunDate;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private User user;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    @PreUpdate
+    public void preUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * The occurrence following {@code date}, or null past the end date. Monthly rules keep
+     * the start date's day of month, clamped to shorter months (Jan 31, Feb 28, Mar 31).
+     */
+    public LocalDate occurrenceAfter(LocalDate date) {
+        LocalDate next = switch (frequency) {
+            case DAILY -> date.plusDays(1);
+            case WEEKLY -> date.plusWeeks(1);
+            case MONTHLY -> {
+                YearMonth month = YearMonth.from(date).plusMonths(1);
+                yield month.atDay(Math.min(startDate.getDayOfMonth(), month.lengthOfMonth()));
+            }
+        };
+        return endDate != null && next.isAfter(endDate) ? null : next;
+    }
+
+    public boolean isActive() {
+        return nextRunDate != null;
+    }
+
+    public enum Frequency {
+        DAILY, WEEKLY, MONTHLY
+    }
+}
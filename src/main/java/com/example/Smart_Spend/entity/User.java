@@ -4,24 +4,31 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
 import java.time.LocalDateTime;
-import java.util.Collection;
-import java.util.Collections;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_created_at_id", columnList = "created_at, id")
+})
+// Read on every login and most page views; see application.conf for sizing
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "user-emails")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class User implements UserDetails {
+public class User {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    // Never changes after registration, so email -> id lookups can be cached
+    @NaturalId
     @Column(unique = true, nullable = false)
     private String email;
     
@@ -41,15 +48,14 @@ public class User implements UserDetails {
     // Changed from boolean to Boolean to handle null values
     @Column(name = "email_verified", columnDefinition = "boolean default false")
     private Boolean emailVerified = false;
-    
-    @Column(name = "verification_token")
-    private String verificationToken;
-    
-    @Column(name = "reset_token")
-    private String resetToken;
-    
-    @Column(name = "reset_token_expiry")
-    private LocalDateTime resetTokenExpiry;
+
+    // Opt-in: the month-end job copies last month's budgets into the new month
+    @Column(name = "budget_rollover", columnDefinition = "boolean default false")
+    private Boolean budgetRollover = false;
+
+    // Set when deletion is requested; the account can no longer sign in or be re-enabled
+    @Column(name = "deletion_requested_at")
+    private LocalDateTime deletionRequestedAt;
     
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
@@ -77,44 +83,16 @@ public class User implements UserDetails {
         return emailVerified;
     }
     
-    public enum Role {
-        USER, ADMIN
-    }
-    
-    // UserDetails implementation
-    @Override
-    public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    public boolean isBudgetRollover() {
+        return budgetRollover != null ? budgetRollover : false;
     }
     
-    @Override
-    public String getUsername() {
-        return email; // Use email as username
+    public boolean isPendingDeletion() {
+        return deletionRequestedAt != null;
     }
     
-    @Override
-    public String getPassword() {
-        return password;
-    }
-    
-    @Override
-    public boolean isAccountNonExpired() {
-        return true;
-    }
-    
-    @Override
-    public boolean isAccountNonLocked() {
-        return true;
-    }
-    
-    @Override
-    public boolean isCredentialsNonExpired() {
-        return true;
-    }
-    
-    @Override
-    public boolean isEnabled() {
-        return true; // Allow login even if email not verified
+    public enum Role {
+        USER, ADMIN
     }
     
     // Helper methods
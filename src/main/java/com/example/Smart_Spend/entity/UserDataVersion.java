@@ -0,0 +1,30 @@
+package com.example.Smart_Spend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Monotonic counter bumped on every write to a user's expenses or budgets.
+ * Kept out of the users row so saving a {@link User} can never overwrite it.
+ */
+@Entity
+@Table(name = "user_data_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDataVersion {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,73 @@
+package com.example.Smart_Spend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Durable progress record for an asynchronous user deletion. The worker
+ * resumes any job that is not finished, so a crash mid-way only repeats
+ * the current (idempotent) chunk.
+ */
+@Entity
+@Table(name = "user_deletion_jobs", indexes = {
+        @Index(name = "idx_user_deletion_jobs_status", columnList = "status, created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDeletionJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "user_email")
+    private String userEmail;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.PENDING;
+
+    @Enumerated(EnumType.STRING)
+    private Phase phase = Phase.RECURRING;
+
+    @Column(name = "rows_deleted")
+    private long rowsDeleted;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @PreUpdate
+    public void preUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public boolean isActive() {
+        return status == Status.PENDING || status == Status.RUNNING;
+    }
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    // Child tables first, the user row last; recurring rules before expenses so none are generated meanwhile
+    public enum Phase {
+        RECURRING, EXPENSES, BUDGETS, TOKENS, USER
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.Smart_Spend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Single-use email token (verification or password reset). Only the SHA-256 of the
+ * token is stored, so the primary key doubles as the lookup index and a leaked
+ * table cannot be replayed.
+ */
+@Entity
+@Table(name = "user_tokens", indexes = {
+        @Index(name = "idx_user_tokens_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_user_tokens_user_purpose", columnList = "user_id, purpose")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserToken {
+
+    @Id
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Purpose purpose;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public enum Purpose {
+        VERIFY_EMAIL, RESET_PASSWORD
+    }
+}
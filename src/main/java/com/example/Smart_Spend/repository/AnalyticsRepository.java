@@ -0,0 +1,116 @@
+package com.example.Smart_Spend.repository;
+
+import com.example.Smart_Spend.config.AnalyticsBulkhead;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Set-based admin reporting queries. Runs on the analytics pool, never the
+ * interactive one; call through {@link AnalyticsBulkhead#execute} (exports through
+ * {@link AnalyticsBulkhead#stream}).
+ * Expense aggregates add the rollups of archived months (expense_month_rollups).
+ */
+@Repository
+public class AnalyticsRepository {
+
+    private final JdbcTemplate jdbc;
+
+    public AnalyticsRepository(AnalyticsBulkhead bulkhead) {
+        this.jdbc = bulkhead.getJdbcTemplate();
+    }
+
+    public long countUsers() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+    }
+
+    public long countExpenses() {
+        return jdbc.queryForObject("SELECT (SELECT COUNT(*) FROM expenses) + " +
+                "(SELECT COALESCE(SUM(row_count), 0) FROM expense_month_rollups)", Long.class);
+    }
+
+    public BigDecimal totalExpenseAmount() {
+        return jdbc.queryForObject(
+                "SELECT (SELECT COALESCE(SUM(amount), 0) FROM expenses WHERE type = 'EXPENSE') + " +
+                "(SELECT COALESCE(SUM(total), 0) FROM expense_month_rollups WHERE type = 'EXPENSE')", BigDecimal.class);
+    }
+
+    public long countActiveUsersSince(LocalDate since) {
+        return jdbc.queryForObject(
+                "SELECT COUNT(DISTINCT user_id) FROM expenses WHERE transaction_date > ?",
+                Long.class, Date.valueOf(since));
+    }
+
+    public Map<YearMonth, BigDecimal> monthlyExpenseTotals(YearMonth from) {
+        Map<YearMonth, BigDecimal> totals = new HashMap<>();
+        jdbc.query("SELECT y, m, SUM(total) AS total FROM (" +
+                        "SELECT EXTRACT(YEAR FROM transaction_date)::int AS y, EXTRACT(MONTH FROM transaction_date)::int AS m, " +
+                        "SUM(amount) AS total FROM expenses " +
+                        "WHERE type = 'EXPENSE' AND transaction_date >= ? GROUP BY 1, 2 " +
+                        "UNION ALL SELECT year, month, SUM(total) FROM expense_month_rollups " +
+                        "WHERE type = 'EXPENSE' AND make_date(year, month, 1) >= ? GROUP BY 1, 2) t GROUP BY y, m",
+                (RowCallbackHandler) rs -> totals.put(YearMonth.of(rs.getInt("y"), rs.getInt("m")), rs.getBigDecimal("total")),
+                Date.valueOf(from.atDay(1)), Date.valueOf(from.atDay(1)));
+        return totals;
+    }
+
+    public Map<String, BigDecimal> categoryTotals(YearMonth month) {
+        Map<String, BigDecimal> totals = new HashMap<>();
+        jdbc.query("SELECT category, SUM(total) AS total FROM (" +
+                        "SELECT category, amount AS total FROM expenses " +
+                        "WHERE type = 'EXPENSE' AND transaction_date >= ? AND transaction_date < ? " +
+                        "UNION ALL SELECT category, total FROM expense_month_rollups " +
+                        "WHERE type = 'EXPENSE' AND year = ? AND month = ?) t GROUP BY category",
+                (RowCallbackHandler) rs -> totals.put(rs.getString("category"), rs.getBigDecimal("total")),
+                Date.valueOf(month.atDay(1)), Date.valueOf(month.plusMonths(1).atDay(1)),
+                month.getYear(), month.getMonthValue());
+        return totals;
+    }
+
+    public Map<YearMonth, Long> monthlyUserSignups(YearMonth from) {
+        Map<YearMonth, Long> signups = new HashMap<>();
+        jdbc.query("SELECT EXTRACT(YEAR FROM created_at) AS y, EXTRACT(MONTH FROM created_at) AS m, COUNT(*) AS total " +
+                        "FROM users WHERE created_at >= ? GROUP BY 1, 2",
+                (RowCallbackHandler) rs -> signups.put(YearMonth.of(rs.getInt("y"), rs.getInt("m")), rs.getLong("total")),
+                Timestamp.valueOf(from.atDay(1).atStartOfDay()));
+        return signups;
+    }
+
+    // Export streams: rows are handed to the callback as they arrive (fetch size 1000)
+
+    public void forEachUser(RowCallbackHandler handler) {
+        jdbc.query("SELECT id, email, first_name, last_name, role, email_verified, created_at FROM users ORDER BY id",
+                handler);
+    }
+
+    public void forEachExpense(RowCallbackHandler handler) {
+        jdbc.query("SELECT e.id, u.email, e.title, e.amount, e.category, e.type, e.transaction_date, e.description " +
+                "FROM expenses e JOIN users u ON u.id = e.user_id ORDER BY e.id", handler);
+    }
+
+    public void forEachBudget(RowCallbackHandler handler) {
+        jdbc.query("SELECT b.id, u.email, b.category, b.amount, b.month, b.year, b.created_at " +
+                "FROM budgets b JOIN users u ON u.id = b.user_id ORDER BY b.id", handler);
+    }
+
+    /** Emails of the given users that still exist; callers pass one block at a time. */
+    public Map<Long, String> findEmails(Collection<Long> userIds) {
+        Map<Long, String> emails = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return emails;
+        }
+        jdbc.query("SELECT id, email FROM users WHERE id IN (" + String.join(", ", Collections.nCopies(userIds.size(), "?")) + ")",
+                (RowCallbackHandler) rs -> emails.put(rs.getLong("id"), rs.getString("email")), userIds.toArray());
+        return emails;
+    }
+}
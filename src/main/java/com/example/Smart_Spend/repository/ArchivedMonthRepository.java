@@ -0,0 +1,16 @@
+package com.example.Smart_Spend.repository;
+
+import com.example.Smart_Spend.entity.ArchivedMonth;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedMonthRepository extends JpaRepository<ArchivedMonth, Long> {
+
+    Optional<ArchivedMonth> findByYearAndMonth(int year, int month);
+
+    List<ArchivedMonth> findAllByOrderByYearDescMonthDesc();
+}
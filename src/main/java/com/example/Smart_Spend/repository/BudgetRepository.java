@@ -1,15 +1,73 @@
 package com.example.Smart_Spend.repository;
 
 import com.example.Smart_Spend.entity.Budget;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BudgetRepository extends JpaRepository<Budget, Long> {
     List<Budget> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    // Checked on every budget save and expense alert; results are evicted by BudgetChangedEvent
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "budget-lookups")
+    })
     Optional<Budget> findByUserIdAndCategoryAndMonthAndYear(Long userId, String category, int month, int year);
+
     List<Budget> findByUserIdAndMonthAndYear(Long userId, int month, int year);
+
+    // Budget versus actual for every budget of the user (month = 0) or one month, in a single
+    // grouped statement. Each budget joins only its own month's expenses through a date range,
+    // so the join walks idx_expenses_user_date; archived months add their rollup.
+    // Columns: id, category, month, year, amount, spent.
+    @Query(value = "SELECT b.id, b.category, b.month, b.year, b.amount, COALESCE(SUM(e.amount), 0) + " +
+            "COALESCE((SELECT SUM(r.total) FROM expense_month_rollups r WHERE r.user_id = b.user_id " +
+            "AND r.year = b.year AND r.month = b.month AND r.category = b.category AND r.type = 'EXPENSE'), 0) " +
+            "FROM budgets b LEFT JOIN expenses e ON e.user_id = b.user_id AND e.category = b.category " +
+            "AND e.type = 'EXPENSE' " +
+            "AND e.transaction_date >= make_date(b.year, b.month, 1) " +
+            "AND e.transaction_date < make_date(b.year, b.month, 1) + INTERVAL '1 month' " +
+            "WHERE b.user_id = :userId AND (:month = 0 OR (b.year = :year AND b.month = :month)) " +
+            "GROUP BY b.id, b.category, b.month, b.year, b.amount " +
+            "ORDER BY b.year DESC, b.month DESC, b.category", nativeQuery = true)
+    List<Object[]> findProgressRows(@Param("userId") Long userId,
+                                    @Param("month") int month,
+                                    @Param("year") int year);
+
+    // Copies the opted-in users' budgets of one month into the next as a single INSERT ... SELECT.
+    // Categories the user already budgeted for the target month are left alone, so a repeated
+    // chunk copies nothing; the unique (user, category, year, month) index keeps a budget
+    // created concurrently from being duplicated. Returns the owner of every inserted row.
+    @Transactional
+    @Query(value = "INSERT INTO budgets (category, amount, month, year, user_id, created_at, updated_at) " +
+            "SELECT b.category, b.amount, :toMonth, :toYear, b.user_id, now(), now() " +
+            "FROM budgets b JOIN users u ON u.id = b.user_id AND u.budget_rollover " +
+            "WHERE b.user_id IN (:userIds) AND b.year = :fromYear AND b.month = :fromMonth " +
+            "AND NOT EXISTS (SELECT 1 FROM budgets t WHERE t.user_id = b.user_id AND t.category = b.category " +
+            "                AND t.year = :toYear AND t.month = :toMonth) " +
+            "ON CONFLICT DO NOTHING RETURNING user_id", nativeQuery = true)
+    List<Long> copyForward(@Param("userIds") Collection<Long> userIds,
+                           @Param("fromYear") int fromYear,
+                           @Param("fromMonth") int fromMonth,
+                           @Param("toYear") int toYear,
+                           @Param("toMonth") int toMonth);
+
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "budgets"))
+    @Query(value = "DELETE FROM budgets WHERE id IN (SELECT id FROM budgets WHERE user_id = :userId LIMIT :batchSize)",
+            nativeQuery = true)
+    int deleteChunkByUserId(@Param("userId") Long userId, @Param("batchSize") int batchSize);
 }
\ No newline at end of file
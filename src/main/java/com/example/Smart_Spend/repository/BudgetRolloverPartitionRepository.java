@@ -0,0 +1,12 @@
+package com.example.Smart_Spend.repository;
+
+import com.example.Smart_Spend.entity.BudgetRolloverPartition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BudgetRolloverPartitionRepository extends JpaRepository<BudgetRolloverPartition, Long> {
+    List<BudgetRolloverPartition> findByYearAndMonthOrderByPartitionNo(int year, int month);
+}
@@ -0,0 +1,47 @@
+package com.example.Smart_Spend.repository;
+
+import com.example.Smart_Spend.entity.BudgetSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BudgetSummaryRepository extends JpaRepository<BudgetSummary, Long> {
+
+    Optional<BudgetSummary> findByUserIdAndYearAndMonth(Long userId, int year, int month);
+
+    // One row per user with budgets in the month, from a single grouped pass; re-running
+    // a chunk overwrites its rows instead of duplicating them. Returns the users written.
+    @Transactional
+    @Query(value = "INSERT INTO budget_summaries (user_id, year, month, budget_count, over_budget_count, " +
+            "total_budget, total_spent, created_at) " +
+            "SELECT p.user_id, :year, :month, COUNT(*), COUNT(*) FILTER (WHERE p.spent > p.amount), " +
+            "SUM(p.amount), SUM(p.spent), now() " +
+            "FROM (SELECT b.user_id, b.amount, COALESCE(SUM(e.amount), 0) AS spent " +
+            "      FROM budgets b LEFT JOIN expenses e ON e.user_id = b.user_id AND e.category = b.category " +
+            "      AND e.type = 'EXPENSE' " +
+            "      AND e.transaction_date >= make_date(:year, :month, 1) " +
+            "      AND e.transaction_date < make_date(:year, :month, 1) + INTERVAL '1 month' " +
+            "      WHERE b.user_id IN (:userIds) AND b.year = :year AND b.month = :month " +
+            "      GROUP BY b.id, b.user_id, b.amount) p " +
+            "GROUP BY p.user_id " +
+            "ON CONFLICT (user_id, year, month) DO UPDATE SET budget_count = EXCLUDED.budget_count, " +
+            "over_budget_count = EXCLUDED.over_budget_count, total_budget = EXCLUDED.total_budget, " +
+            "total_spent = EXCLUDED.total_spent, created_at = EXCLUDED.created_at " +
+            "RETURNING user_id", nativeQuery = true)
+    List<Long> upsertForUsers(@Param("userIds") Collection<Long> userIds,
+                       @Param("year") int year,
+                       @Param("month") int month);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BudgetSummary s WHERE s.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+}
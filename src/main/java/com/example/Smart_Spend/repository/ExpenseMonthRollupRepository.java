@@ -0,0 +1,31 @@
+package com.example.Smart_Spend.repository;
+
+import com.example.Smart_Spend.entity.ExpenseMonthRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface ExpenseMonthRollupRepository extends JpaRepository<ExpenseMonthRollup, Long> {
+
+    // Same shape as ExpenseRepository.getCategoryWiseExpenses: category, sum
+    @Query("SELECT r.category, SUM(r.total) FROM ExpenseMonthRollup r WHERE r.userId = :userId " +
+            "AND r.type = 'EXPENSE' AND r.year = :year AND r.month = :month GROUP BY r.category")
+    List<Object[]> getCategoryWiseExpenses(@Param("userId") Long userId,
+                                           @Param("month") int month,
+                                           @Param("year") int year);
+
+    // Archived totals per transaction type. Columns: type, sum, row count
+    @Query("SELECT r.type, SUM(r.total), SUM(r.rowCount) FROM ExpenseMonthRollup r WHERE r.userId = :userId GROUP BY r.type")
+    List<Object[]> getTotalsByType(@Param("userId") Long userId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ExpenseMonthRollup r WHERE r.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+}
@@ -1,13 +1,21 @@
 package com.example.Smart_Spend.repository;
 
+import com.example.Smart_Spend.dto.RecentTransaction;
 import com.example.Smart_Spend.entity.Expense;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 
 @Repository
@@ -15,6 +23,17 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
 
     List<Expense> findByUserIdOrderByTransactionDateDesc(Long userId);
 
+    // Newest N as a projection: reads only the listed columns, stops after N rows of idx_expenses_user_date
+    @Query("SELECT new com.example.Smart_Spend.dto.RecentTransaction(e.id, e.title, e.category, e.amount, e.type, e.transactionDate) " +
+            "FROM Expense e WHERE e.user.id = :userId ORDER BY e.transactionDate DESC, e.id DESC")
+    List<RecentTransaction> findRecentTransactions(@Param("userId") Long userId, Limit limit);
+
+    long countByUserId(Long userId);
+
+    // Lifetime totals per transaction type. Columns: type, sum
+    @Query("SELECT e.type, SUM(e.amount) FROM Expense e WHERE e.user.id = :userId GROUP BY e.type")
+    List<Object[]> getTotalsByType(@Param("userId") Long userId);
+
     List<Expense> findByUserIdAndCategoryOrderByTransactionDateDesc(Long userId, String category);
 
     @Query("SELECT e FROM Expense e WHERE e.user.id = :userId AND e.transactionDate BETWEEN :startDate AND :endDate ORDER BY e.transactionDate DESC")
@@ -22,19 +41,48 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
                                          @Param("startDate") LocalDate startDate,
                                          @Param("endDate") LocalDate endDate);
 
-    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM Expense e WHERE e.user.id = :userId AND e.type = 'EXPENSE' AND MONTH(e.transactionDate) = :month AND YEAR(e.transactionDate) = :year")
-    BigDecimal getTotalExpensesByUserAndMonth(@Param("userId") Long userId,
-                                              @Param("month") int month,
-                                              @Param("year") int year);
-
-    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM Expense e WHERE e.user.id = :userId AND e.type = 'EXPENSE' AND e.category = :category AND MONTH(e.transactionDate) = :month AND YEAR(e.transactionDate) = :year")
-    BigDecimal getTotalExpensesByCategoryAndMonth(@Param("userId") Long userId,
-                                                  @Param("category") String category,
-                                                  @Param("month") int month,
-                                                  @Param("year") int year);
-
-    @Query("SELECT e.category, SUM(e.amount) FROM Expense e WHERE e.user.id = :userId AND e.type = 'EXPENSE' AND MONTH(e.transactionDate) = :month AND YEAR(e.transactionDate) = :year GROUP BY e.category")
-    List<Object[]> getCategoryWiseExpenses(@Param("userId") Long userId,
-                                           @Param("month") int month,
-                                           @Param("year") int year);
+    // Month totals are range predicates on transaction_date (never MONTH()/YEAR() of it), so
+    // Postgres prunes the monthly expenses partitions down to the one month asked for
+
+    default BigDecimal getTotalExpensesByUserAndMonth(Long userId, int month, int year) {
+        YearMonth m = YearMonth.of(year, month);
+        return getTotalExpensesBetween(userId, m.atDay(1), m.plusMonths(1).atDay(1));
+    }
+
+    default BigDecimal getTotalExpensesByCategoryAndMonth(Long userId, String category, int month, int year) {
+        YearMonth m = YearMonth.of(year, month);
+        return getTotalExpensesByCategoryBetween(userId, category, m.atDay(1), m.plusMonths(1).atDay(1));
+    }
+
+    default List<Object[]> getCategoryWiseExpenses(Long userId, int month, int year) {
+        YearMonth m = YearMonth.of(year, month);
+        return getCategoryWiseExpensesBetween(userId, m.atDay(1), m.plusMonths(1).atDay(1));
+    }
+
+    // [from, to)
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM Expense e WHERE e.user.id = :userId AND e.type = 'EXPENSE' " +
+            "AND e.transactionDate >= :from AND e.transactionDate < :to")
+    BigDecimal getTotalExpensesBetween(@Param("userId") Long userId,
+                                       @Param("from") LocalDate from,
+                                       @Param("to") LocalDate to);
+
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM Expense e WHERE e.user.id = :userId AND e.type = 'EXPENSE' " +
+            "AND e.category = :category AND e.transactionDate >= :from AND e.transactionDate < :to")
+    BigDecimal getTotalExpensesByCategoryBetween(@Param("userId") Long userId,
+                                                 @Param("category") String category,
+                                                 @Param("from") LocalDate from,
+                                                 @Param("to") LocalDate to);
+
+    @Query("SELECT e.category, SUM(e.amount) FROM Expense e WHERE e.user.id = :userId AND e.type = 'EXPENSE' " +
+            "AND e.transactionDate >= :from AND e.transactionDate < :to GROUP BY e.category")
+    List<Object[]> getCategoryWiseExpensesBetween(@Param("userId") Long userId,
+                                                  @Param("from") LocalDate from,
+                                                  @Param("to") LocalDate to);
+
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "expenses"))
+    @Query(value = "DELETE FROM expenses WHERE id IN (SELECT id FROM expenses WHERE user_id = :userId LIMIT :batchSize)",
+            nativeQuery = true)
+    int deleteChunkByUserId(@Param("userId") Long userId, @Param("batchSize") int batchSize);
 }
\ No newline at end of file
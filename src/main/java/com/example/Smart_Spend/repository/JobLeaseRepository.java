@@ -0,0 +1,52 @@
+package com.example.Smart_Spend.repository;
+
+import com.example.Smart_Spend.entity.JobLease;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+// All times come from the database clock so node clock skew cannot shorten or extend a lease
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    // 1 when the caller now holds the lease: the row is new or the previous lease has run out.
+    // A live lease is never taken over, not even by its own owner, so it is also a local mutex.
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "job_leases"))
+    @Query(value = "INSERT INTO job_leases (job_name, owner, lease_until, acquired_at) " +
+            "VALUES (:jobName, :owner, now() + make_interval(secs => :ttlSeconds), now()) " +
+            "ON CONFLICT (job_name) DO UPDATE SET owner = EXCLUDED.owner, " +
+            "lease_until = EXCLUDED.lease_until, acquired_at = EXCLUDED.acquired_at " +
+            "WHERE job_leases.lease_until < now()", nativeQuery = true)
+    int tryAcquire(@Param("jobName") String jobName,
+                   @Param("owner") String owner,
+                   @Param("ttlSeconds") long ttlSeconds);
+
+    // 0 means the lease was lost (expired and taken over by another node)
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "job_leases"))
+    @Query(value = "UPDATE job_leases SET lease_until = now() + make_interval(secs => :ttlSeconds) " +
+            "WHERE job_name = :jobName AND owner = :owner AND lease_until >= now()", nativeQuery = true)
+    int renew(@Param("jobName") String jobName,
+              @Param("owner") String owner,
+              @Param("ttlSeconds") long ttlSeconds);
+
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "job_leases"))
+    @Query(value = "UPDATE job_leases SET lease_until = now() WHERE job_name = :jobName AND owner = :owner",
+            nativeQuery = true)
+    int release(@Param("jobName") String jobName, @Param("owner") String owner);
+
+    List<JobLease> findAllByOrderByJobName();
+}
@@ -0,0 +1,28 @@
+package com.example.Smart_Spend.repository;
+
+import com.example.Smart_Spend.entity.JobRun;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface JobRunRepository extends JpaRepository<JobRun, Long> {
+
+    List<JobRun> findTop30ByOrderByStartedAtDesc();
+
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "job_runs"))
+    @Query(value = "DELETE FROM job_runs WHERE id IN " +
+            "(SELECT id FROM job_runs WHERE started_at < :cutoff LIMIT :batchSize)", nativeQuery = true)
+    int deleteStartedBeforeChunk(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
+}
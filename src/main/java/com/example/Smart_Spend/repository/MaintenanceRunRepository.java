@@ -0,0 +1,12 @@
+package com.example.Smart_Spend.repository;
+
+import com.example.Smart_Spend.entity.MaintenanceRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MaintenanceRunRepository extends JpaRepository<MaintenanceRun, Long> {
+    List<MaintenanceRun> findTop20ByOrderByStartedAtDesc();
+}
@@ -0,0 +1,35 @@
+package com.example.Smart_Spend.repository;
+
+import com.example.Smart_Spend.entity.RecurringTransaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RecurringTransactionRepository extends JpaRepository<RecurringTransaction, Long> {
+
+    List<RecurringTransaction> findByUserIdOrderByNextRunDateAsc(Long userId);
+
+    // Earliest-due rules first, straight off idx_recurring_next_run. Rows another node has
+    // locked are skipped, so concurrent schedulers take disjoint batches. Must run in a transaction.
+    @Query(value = "SELECT * FROM recurring_transactions WHERE next_run_date <= :today " +
+            "ORDER BY next_run_date LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<RecurringTransaction> claimDue(@Param("today") LocalDate today, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "recurring_transactions"))
+    @Query(value = "DELETE FROM recurring_transactions WHERE id IN " +
+            "(SELECT id FROM recurring_transactions WHERE user_id = :userId LIMIT :batchSize)",
+            nativeQuery = true)
+    int deleteChunkByUserId(@Param("userId") Long userId, @Param("batchSize") int batchSize);
+}
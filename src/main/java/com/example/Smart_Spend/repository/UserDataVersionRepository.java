@@ -0,0 +1,31 @@
+package com.example.Smart_Spend.repository;
+
+import com.example.Smart_Spend.entity.UserDataVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UserDataVersionRepository extends JpaRepository<UserDataVersion, Long> {
+
+    // Returns the new version
+    @Transactional
+    @Query(value = "INSERT INTO user_data_versions (user_id, version, updated_at) VALUES (:userId, 1, :now) " +
+            "ON CONFLICT (user_id) DO UPDATE SET version = user_data_versions.version + 1, updated_at = :now " +
+            "RETURNING version", nativeQuery = true)
+    long bump(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    // Rows of (user_id, new version)
+    @Transactional
+    @Query(value = "INSERT INTO user_data_versions (user_id, version, updated_at) " +
+            "SELECT id, 1, :now FROM users WHERE id IN (:userIds) " +
+            "ON CONFLICT (user_id) DO UPDATE SET version = user_data_versions.version + 1, updated_at = :now " +
+            "RETURNING user_id, version", nativeQuery = true)
+    List<Object[]> bumpAll(@Param("userIds") Collection<Long> userIds, @Param("now") LocalDateTime now);
+}
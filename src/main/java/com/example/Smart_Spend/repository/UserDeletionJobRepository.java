@@ -0,0 +1,17 @@
+package com.example.Smart_Spend.repository;
+
+import com.example.Smart_Spend.entity.UserDeletionJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserDeletionJobRepository extends JpaRepository<UserDeletionJob, Long> {
+    Optional<UserDeletionJob> findFirstByStatusInOrderByCreatedAtAsc(Collection<UserDeletionJob.Status> statuses);
+    boolean existsByStatusIn(Collection<UserDeletionJob.Status> statuses);
+    boolean existsByUserIdAndStatusIn(Long userId, Collection<UserDeletionJob.Status> statuses);
+    List<UserDeletionJob> findTop20ByOrderByCreatedAtDesc();
+}
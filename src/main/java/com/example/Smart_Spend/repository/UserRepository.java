@@ -2,25 +2,70 @@ package com.example.Smart_Spend.repository;
 
 import com.example.Smart_Spend.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-
-    Optional<User> findByEmail(String email);
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 
     boolean existsByEmail(String email);
 
-    Optional<User> findByVerificationToken(String verificationToken);
-
-    Optional<User> findByResetToken(String resetToken);
-
     @Query("SELECT u FROM User u WHERE u.email = :email AND u.emailVerified = true")
     Optional<User> findByEmailAndVerified(@Param("email") String email);
 
     long countByRole(User.Role role);
-}
\ No newline at end of file
+
+    long countByEmailVerifiedTrue();
+
+    // Keyset page over (created_at, id) newest first. An empty role disables the role
+    // filter; the cursor starts at (far future, Long.MAX_VALUE).
+    @Query(value = "SELECT u.* FROM users u " +
+            "WHERE (u.created_at, u.id) < (:afterCreatedAt, :afterId) " +
+            "AND (:role = '' OR u.role = :role) " +
+            "AND (:anyVerified = true OR COALESCE(u.email_verified, false) = :verified) " +
+            "ORDER BY u.created_at DESC, u.id DESC LIMIT :limit", nativeQuery = true)
+    List<User> searchUsers(@Param("role") String role,
+                           @Param("anyVerified") boolean anyVerified,
+                           @Param("verified") boolean verified,
+                           @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                           @Param("afterId") long afterId,
+                           @Param("limit") int limit);
+
+    // Same page restricted to a LIKE pattern, kept as its own statement so the planner
+    // can use the prefix and trigram indexes instead of a generic plan around an OR.
+    @Query(value = "SELECT u.* FROM users u " +
+            "WHERE (u.created_at, u.id) < (:afterCreatedAt, :afterId) " +
+            "AND (lower(u.email) LIKE :pattern " +
+            "     OR lower(u.first_name || ' ' || u.last_name) LIKE :pattern) " +
+            "AND (:role = '' OR u.role = :role) " +
+            "AND (:anyVerified = true OR COALESCE(u.email_verified, false) = :verified) " +
+            "ORDER BY u.created_at DESC, u.id DESC LIMIT :limit", nativeQuery = true)
+    List<User> searchUsersMatching(@Param("pattern") String pattern,
+                                   @Param("role") String role,
+                                   @Param("anyVerified") boolean anyVerified,
+                                   @Param("verified") boolean verified,
+                                   @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                   @Param("afterId") long afterId,
+                                   @Param("limit") int limit);
+
+    // Next chunk of one rollover partition, walking the primary key
+    @Query(value = "SELECT id FROM users WHERE id > :afterId AND id % :partitions = :partition " +
+            "ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<Long> findPartitionIds(@Param("afterId") long afterId,
+                                @Param("partitions") int partitions,
+                                @Param("partition") int partition,
+                                @Param("limit") int limit);
+
+    // JPQL, so Hibernate evicts the cached users locally; other nodes hear about it via UserAccountChangedEvent
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.budgetRollover = :enabled WHERE u.id = :userId")
+    int updateBudgetRollover(@Param("userId") Long userId, @Param("enabled") boolean enabled);
+}
@@ -0,0 +1,11 @@
+package com.example.Smart_Spend.repository;
+
+import com.example.Smart_Spend.entity.User;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+
+    // Resolved through the natural-id and entity caches; a hit needs no query at all
+    Optional<User> loadByEmail(String email);
+}
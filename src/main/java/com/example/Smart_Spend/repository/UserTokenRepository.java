@@ -0,0 +1,49 @@
+package com.example.Smart_Spend.repository;
+
+import com.example.Smart_Spend.entity.UserToken;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface UserTokenRepository extends JpaRepository<UserToken, String> {
+
+    // Single-use: the row is removed by the same statement that validates it,
+    // so two concurrent redemptions cannot both succeed
+    @Transactional
+    @Query(value = "DELETE FROM user_tokens WHERE token_hash = :hash AND purpose = :purpose " +
+            "AND expires_at > :now RETURNING user_id", nativeQuery = true)
+    Optional<Long> consume(@Param("hash") String hash,
+                           @Param("purpose") String purpose,
+                           @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_tokens"))
+    @Query(value = "DELETE FROM user_tokens WHERE user_id = :userId AND purpose = :purpose", nativeQuery = true)
+    int deleteByUserIdAndPurpose(@Param("userId") Long userId, @Param("purpose") String purpose);
+
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_tokens"))
+    @Query(value = "DELETE FROM user_tokens WHERE user_id = :userId", nativeQuery = true)
+    int deleteByUserId(@Param("userId") Long userId);
+
+    // Purge walks the expiry index in bounded chunks
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_tokens"))
+    @Query(value = "DELETE FROM user_tokens WHERE token_hash IN (" +
+            "SELECT token_hash FROM user_tokens WHERE expires_at < :now ORDER BY expires_at LIMIT :batchSize)",
+            nativeQuery = true)
+    int deleteExpiredChunk(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
+}
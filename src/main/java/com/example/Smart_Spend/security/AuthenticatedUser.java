@@ -0,0 +1,125 @@
+package com.example.Smart_Spend.security;
+
+import com.example.Smart_Spend.entity.User;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compact security principal kept in the HTTP session instead of the {@link User} entity.
+ * The password hash is only present during authentication and is erased afterwards.
+ * {@link CurrentUser} provides a reference to the entity for associations.
+ */
+public final class AuthenticatedUser implements UserDetails, CredentialsContainer, Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final String email;
+    private final User.Role role;
+    private final String firstName;
+    private final String displayName;
+    private transient String password;
+
+    public AuthenticatedUser(Long id, String email, User.Role role, String firstName, String displayName, String password) {
+        this.id = id;
+        this.email = email;
+        this.role = role;
+        this.firstName = firstName;
+        this.displayName = displayName;
+        this.password = password;
+    }
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getRole(),
+                user.getFirstName(), user.getFullName(), user.getPassword());
+    }
+
+    public AuthenticatedUser withPassword(String newPassword) {
+        return new AuthenticatedUser(id, email, role, firstName, displayName, newPassword);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public User.Role getRole() {
+        return role;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        password = null;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    // Identity is the username, as with Spring's own User; the session registry relies on it
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof AuthenticatedUser other && Objects.equals(email, other.email);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(email);
+    }
+
+    @Override
+    public String toString() {
+        return "AuthenticatedUser[id=" + id + ", email=" + email + ", role=" + role + "]";
+    }
+}
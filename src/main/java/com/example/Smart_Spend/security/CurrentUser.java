@@ -0,0 +1,45 @@
+package com.example.Smart_Spend.security;
+
+import com.example.Smart_Spend.entity.User;
+import com.example.Smart_Spend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+/**
+ * Request-scoped access to the signed-in user: the principal and its id, and an id-only
+ * reference for associations. Nothing is read from the database.
+ */
+@Component
+@RequestScope
+@RequiredArgsConstructor
+public class CurrentUser {
+
+    private final UserRepository userRepository;
+
+    public AuthenticatedUser getPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return principal;
+        }
+        return null;
+    }
+
+    public Long getId() {
+        AuthenticatedUser principal = getPrincipal();
+        return principal != null ? principal.getId() : null;
+    }
+
+    /**
+     * Uninitialised proxy carrying only the id, enough to set a {@code @ManyToOne user} before
+     * the entity is handed to a service. Controllers run outside a transaction, so the proxy is
+     * detached from the start: anything but {@code getId()} throws LazyInitializationException.
+     * Load the user through {@link UserRepository} inside a transaction when its state is needed.
+     */
+    public User getReference() {
+        Long id = getId();
+        return id != null ? userRepository.getReferenceById(id) : null;
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.Smart_Spend.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.MapSession;
+import org.springframework.session.PrincipalNameIndexResolver;
+import org.springframework.session.Session;
+
+import java.io.*;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Spring Session repository backed by the {@code http_sessions} table, so sessions
+ * survive deploys and are shared by every node.
+ *
+ * Attributes are written only when they change, as one deflated blob. Concurrent requests
+ * of one session each change their own attributes, so a save applies just the attributes
+ * this request set or removed to the stored blob, and retries if another save replaced the
+ * blob meanwhile. Requests that merely touch the session are buffered and flushed as a
+ * single JDBC batch every few seconds, instead of costing one UPDATE each. Expired rows
+ * are removed in bounded chunks over the expiry_time index.
+ */
+@Slf4j
+public class DatabaseSessionRepository
+        implements FindByIndexNameSessionRepository<DatabaseSessionRepository.DatabaseSession>, BeanClassLoaderAware {
+
+    private static final String SELECT_COLUMNS =
+            "SELECT id, creation_time, last_access_time, max_inactive_seconds, attributes FROM http_sessions ";
+    private static final int MAX_MERGE_ATTEMPTS = 5;
+
+    private final JdbcTemplate jdbc;
+    private final Duration defaultMaxInactiveInterval;
+    private final int sweepBatchSize;
+    private final Map<String, Instant> pendingTouches = new ConcurrentHashMap<>();
+    private final PrincipalNameIndexResolver<Session> principalNameResolver = new PrincipalNameIndexResolver<>();
+    private ClassLoader classLoader = getClass().getClassLoader();
+
+    public DatabaseSessionRepository(JdbcTemplate jdbc, Duration defaultMaxInactiveInterval, int sweepBatchSize) {
+        this.jdbc = jdbc;
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        // devtools restarts the app in a new class loader; deserialize with the current one
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public DatabaseSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(defaultMaxInactiveInterval);
+        return new DatabaseSession(session, true);
+    }
+
+    @Override
+    public void save(DatabaseSession session) {
+        if (session.isNew) {
+            jdbc.update("INSERT INTO http_sessions (id, principal_name, creation_time, last_access_time, " +
+                            "max_inactive_seconds, expiry_time, attributes) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                    session.getId(), principalNameResolver.resolveIndexValueFor(session),
+                    session.getCreationTime().toEpochMilli(), session.getLastAccessedTime().toEpochMilli(),
+                    session.getMaxInactiveInterval().toSeconds(), expiryMillis(session), serialize(session));
+        } else if (session.changed || !session.getId().equals(session.originalId)) {
+            update(session);
+            pendingTouches.remove(session.originalId);
+        } else {
+            pendingTouches.merge(session.getId(), session.getLastAccessedTime(),
+                    (a, b) -> a.isAfter(b) ? a : b);
+        }
+        session.isNew = false;
+        session.changed = false;
+        session.changedAttributes.clear();
+        session.originalId = session.getId();
+    }
+
+    // Compare-and-set on the blob; a session deleted meanwhile (e.g. by logout) stays deleted
+    private void update(DatabaseSession session) {
+        for (int attempt = 1; ; attempt++) {
+            List<byte[]> rows = jdbc.query("SELECT attributes FROM http_sessions WHERE id = ?",
+                    (rs, i) -> rs.getBytes("attributes"), session.originalId);
+            if (rows.isEmpty()) {
+                return;
+            }
+            byte[] stored = rows.get(0);
+            MapSession merged = new MapSession(session.getId());
+            deserialize(stored).forEach(merged::setAttribute);
+            session.changedAttributes.forEach((name, value) -> {
+                if (value != null) {
+                    merged.setAttribute(name, value);
+                } else {
+                    merged.removeAttribute(name);
+                }
+            });
+            int updated = jdbc.update("UPDATE http_sessions SET id = ?, principal_name = ?, last_access_time = ?, " +
+                            "max_inactive_seconds = ?, expiry_time = ?, attributes = ? " +
+                            "WHERE id = ? AND attributes IS NOT DISTINCT FROM ?",
+                    session.getId(), principalNameResolver.resolveIndexValueFor(merged),
+                    session.getLastAccessedTime().toEpochMilli(), session.getMaxInactiveInterval().toSeconds(),
+                    expiryMillis(session), serialize(merged), session.originalId,
+                    new SqlParameterValue(Types.BINARY, stored));
+            if (updated > 0) {
+                return;
+            }
+            if (attempt >= MAX_MERGE_ATTEMPTS) {
+                log.warn("Session attributes kept changing concurrently, changes of this request were not saved");
+                return;
+            }
+        }
+    }
+
+    @Override
+    public DatabaseSession findById(String id) {
+        List<MapSession> rows = jdbc.query(SELECT_COLUMNS + "WHERE id = ?", (rs, i) -> mapRow(rs), id);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        MapSession session = rows.get(0);
+        if (session.isExpired()) {
+            deleteById(id);
+            return null;
+        }
+        return new DatabaseSession(session, false);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        pendingTouches.remove(id);
+        jdbc.update("DELETE FROM http_sessions WHERE id = ?", id);
+    }
+
+    @Override
+    public Map<String, DatabaseSession> findByIndexNameAndIndexValue(String indexName, String indexValue) {
+        if (!PRINCIPAL_NAME_INDEX_NAME.equals(indexName)) {
+            return Collections.emptyMap();
+        }
+        Map<String, DatabaseSession> sessions = new HashMap<>();
+        jdbc.query(SELECT_COLUMNS + "WHERE principal_name = ?", rs -> {
+            MapSession session = mapRow(rs);
+            if (!session.isExpired()) {
+                sessions.put(session.getId(), new DatabaseSession(session, false));
+            }
+        }, indexValue);
+        return sessions;
+    }
+
+    @Scheduled(fixedDelayString = "${app.session.touch-flush-ms:10000}")
+    public void flushTouches() {
+        if (pendingTouches.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        for (String id : new ArrayList<>(pendingTouches.keySet())) {
+            Instant touched = pendingTouches.remove(id);
+            if (touched != null) {
+                long millis = touched.toEpochMilli();
+                batch.add(new Object[]{millis, millis, id, millis});
+            }
+        }
+        jdbc.batchUpdate("UPDATE http_sessions SET last_access_time = ?, " +
+                "expiry_time = CASE WHEN max_inactive_seconds < 0 THEN expiry_time ELSE ? + max_inactive_seconds * 1000 END " +
+                "WHERE id = ? AND last_access_time < ?", batch);
+        log.debug("Flushed {} session touches", batch.size());
+    }
+
+    @Scheduled(cron = "${app.session.cleanup-cron:0 * * * * *}")
+    public void deleteExpiredSessions() {
+        flushTouches();
+        long now = System.currentTimeMillis();
+        int deleted;
+        int total = 0;
+        do {
+            deleted = jdbc.update("DELETE FROM http_sessions WHERE id IN (" +
+                    "SELECT id FROM http_sessions WHERE expiry_time < ? LIMIT ?)", now, sweepBatchSize);
+            total += deleted;
+        } while (deleted >= sweepBatchSize);
+        if (total > 0) {
+            log.debug("Removed {} expired sessions", total);
+        }
+    }
+
+    private long expiryMillis(Session session) {
+        Duration maxInactive = session.getMaxInactiveInterval();
+        return maxInactive.isNegative()
+                ? Long.MAX_VALUE
+                : session.getLastAccessedTime().plus(maxInactive).toEpochMilli();
+    }
+
+    private MapSession mapRow(ResultSet rs) throws SQLException {
+        MapSession session = new MapSession(rs.getString("id"));
+        session.setCreationTime(Instant.ofEpochMilli(rs.getLong("creation_time")));
+        Instant lastAccess = Instant.ofEpochMilli(rs.getLong("last_access_time"));
+        Instant pending = pendingTouches.get(session.getId());
+        session.setLastAccessedTime(pending != null && pending.isAfter(lastAccess) ? pending : lastAccess);
+        session.setMaxInactiveInterval(Duration.ofSeconds(rs.getLong("max_inactive_seconds")));
+        deserialize(rs.getBytes("attributes")).forEach(session::setAttribute);
+        return session;
+    }
+
+    private byte[] serialize(Session session) {
+        Map<String, Object> attributes = new HashMap<>();
+        for (String name : session.getAttributeNames()) {
+            attributes.put(name, session.getAttribute(name));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeObject(attributes);
+        } catch (IOException e) {
+            throw new IllegalStateException("Session attributes are not serializable", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> deserialize(byte[] data) {
+        if (data == null || data.length == 0) {
+            return Collections.emptyMap();
+        }
+        try (ObjectInputStream in = new ConfigurableObjectInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(data)), classLoader)) {
+            return (Map<String, Object>) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            // An unreadable session (e.g. after an incompatible deploy) is treated as empty
+            log.warn("Discarding unreadable session attributes: {}", e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Tracks whether anything other than the last-access time changed since loading.
+     */
+    public static final class DatabaseSession implements Session {
+
+        private final MapSession delegate;
+        private boolean isNew;
+        private boolean changed;
+        private String originalId;
+        // Set or removed (null) since loading
+        private final Map<String, Object> changedAttributes = new HashMap<>();
+
+        DatabaseSession(MapSession delegate, boolean isNew) {
+            this.delegate = delegate;
+            this.isNew = isNew;
+            this.originalId = delegate.getId();
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            return delegate.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return delegate.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return delegate.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            delegate.setAttribute(attributeName, attributeValue);
+            changedAttributes.put(attributeName, attributeValue);
+            changed = true;
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            delegate.removeAttribute(attributeName);
+            changedAttributes.put(attributeName, null);
+            changed = true;
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return delegate.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            delegate.setLastAccessedTime(lastAccessedTime);
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            delegate.setMaxInactiveInterval(interval);
+            changed = true;
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return delegate.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return delegate.isExpired();
+        }
+    }
+}
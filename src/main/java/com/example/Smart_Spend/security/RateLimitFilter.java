@@ -0,0 +1,82 @@
+package com.example.Smart_Spend.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the configured per-endpoint policies and answers 429 with Retry-After
+ * when a bucket is empty. Sits in the security chain after the security context
+ * is loaded (so USER policies see the signed-in user) and before form login.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private record Rule(String name, RequestMatcher matcher, RateLimitProperties.Policy policy) {
+    }
+
+    private final RateLimiter rateLimiter;
+    private final boolean enabled;
+    private final List<Rule> rules = new ArrayList<>();
+
+    public RateLimitFilter(RateLimiter rateLimiter, RateLimitProperties properties) {
+        this.rateLimiter = rateLimiter;
+        this.enabled = properties.isEnabled();
+        for (Map.Entry<String, RateLimitProperties.Policy> entry : properties.getPolicies().entrySet()) {
+            RateLimitProperties.Policy policy = entry.getValue();
+            List<RequestMatcher> matchers = policy.getPaths().stream()
+                    .map(path -> (RequestMatcher) new AntPathRequestMatcher(path, policy.getMethod()))
+                    .toList();
+            rules.add(new Rule(entry.getKey(), new OrRequestMatcher(matchers), policy));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || rules.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        for (Rule rule : rules) {
+            if (!rule.matcher().matches(request)) {
+                continue;
+            }
+            long waitNanos = rateLimiter.tryAcquire(rule.name(), rule.policy(), resolveKey(request, rule.policy()));
+            if (waitNanos > 0) {
+                long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader("Retry-After", String.valueOf(retryAfter));
+                response.setContentType("text/plain;charset=UTF-8");
+                response.getWriter().write("Too many requests. Please try again in " + retryAfter + " seconds.");
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    private String resolveKey(HttpServletRequest request, RateLimitProperties.Policy policy) {
+        if (policy.getKey() == RateLimitProperties.KeyType.USER) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+                return "user:" + user.getId();
+            }
+        }
+        // Behind a proxy, enable server.forward-headers-strategy so this is the real client
+        return "ip:" + request.getRemoteAddr();
+    }
+}
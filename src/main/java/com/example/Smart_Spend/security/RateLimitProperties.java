@@ -0,0 +1,47 @@
+package com.example.Smart_Spend.security;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.rate-limit")
+@Validated
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /** Upper bound on tracked keys across all policies. */
+    @Positive
+    private int maxKeys = 100_000;
+
+    private Map<String, @Valid Policy> policies = new LinkedHashMap<>();
+
+    @Data
+    public static class Policy {
+        private String method = "POST";
+        private List<String> paths = new ArrayList<>();
+        private KeyType key = KeyType.IP;
+        @Positive
+        private int capacity = 10;
+        // Zero would never refill and make the wait time infinite
+        @Positive
+        private double refillPerMinute = 10;
+    }
+
+    public enum KeyType {
+        /** Client address. */
+        IP,
+        /** Signed-in user id, falling back to the client address when anonymous. */
+        USER
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.Smart_Spend.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds one {@link TokenBucket} per (policy, key). Memory is bounded by
+ * {@code app.rate-limit.max-keys}: idle (refilled) buckets are swept periodically, and
+ * also right away (at most once a second) when a new key finds the map full. If it is
+ * still full, the new key is let through untracked rather than throttled together with
+ * strangers, which would let a flood of fresh keys lock everyone else out. A bucket that
+ * still holds a throttle is never dropped, so such a flood cannot reset anyone's limit.
+ */
+@Component
+@Slf4j
+public class RateLimiter {
+
+    private static final long EVICTION_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastEviction = new AtomicLong(System.nanoTime() - EVICTION_INTERVAL);
+
+    public RateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("smartspend.ratelimit.keys", buckets, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns 0 if the request may proceed, otherwise the nanoseconds until it could.
+     */
+    public long tryAcquire(String policyName, RateLimitProperties.Policy policy, String key) {
+        long now = System.nanoTime();
+        String bucketKey = policyName + '|' + key;
+        TokenBucket bucket = buckets.get(bucketKey);
+        if (bucket == null) {
+            if (buckets.size() >= properties.getMaxKeys() && !evictIdle(now)) {
+                meterRegistry.counter("smartspend.ratelimit.untracked", "policy", policyName).increment();
+                return 0;
+            }
+            bucket = buckets.computeIfAbsent(bucketKey,
+                    k -> new TokenBucket(policy.getCapacity(), policy.getRefillPerMinute(), now));
+        }
+        long waitNanos = bucket.tryConsume(now);
+        if (waitNanos > 0) {
+            meterRegistry.counter("smartspend.ratelimit.rejected", "policy", policyName).increment();
+        }
+        return waitNanos;
+    }
+
+    // True if there is room again; one caller per interval sweeps, the others just check
+    private boolean evictIdle(long now) {
+        long last = lastEviction.get();
+        if (now - last >= EVICTION_INTERVAL && lastEviction.compareAndSet(last, now)) {
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+        }
+        return buckets.size() < properties.getMaxKeys();
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-ms:30000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+        if (before >= properties.getMaxKeys()) {
+            log.warn("Rate limiter was at capacity ({} keys), {} left after sweeping idle buckets",
+                    before, buckets.size());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.Smart_Spend.security;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free token bucket: state is an immutable snapshot swapped with CAS,
+ * so concurrent requests for the same key never block each other.
+ */
+final class TokenBucket {
+
+    private record State(double tokens, long refilledAt) {
+    }
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final AtomicReference<State> state;
+
+    TokenBucket(int capacity, double refillPerMinute, long now) {
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerMinute / TimeUnit.MINUTES.toNanos(1);
+        this.state = new AtomicReference<>(new State(capacity, now));
+    }
+
+    /**
+     * Takes one token. Returns 0 on success, otherwise the nanoseconds until one is available.
+     */
+    long tryConsume(long now) {
+        while (true) {
+            State current = state.get();
+            double tokens = refill(current, now);
+            if (tokens < 1) {
+                return (long) Math.ceil((1 - tokens) / tokensPerNano);
+            }
+            if (state.compareAndSet(current, new State(tokens - 1, now))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * A full bucket is indistinguishable from a new one and can be dropped.
+     */
+    boolean isFull(long now) {
+        return refill(state.get(), now) >= capacity;
+    }
+
+    private double refill(State current, long now) {
+        long elapsed = Math.max(0, now - current.refilledAt());
+        return Math.min(capacity, current.tokens() + elapsed * tokensPerNano);
+    }
+}
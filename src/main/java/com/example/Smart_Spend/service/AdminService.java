@@ -1,21 +1,40 @@
 package com.example.Smart_Spend.service;
 
+import com.example.Smart_Spend.config.AnalyticsBulkhead;
+import com.example.Smart_Spend.config.ReplicaRoutingDataSource;
+import com.example.Smart_Spend.config.SingleFlight;
+import com.example.Smart_Spend.dto.UserDetailsView;
+import com.example.Smart_Spend.dto.UserSearchPage;
 import com.example.Smart_Spend.entity.User;
 import com.example.Smart_Spend.entity.Expense;
-import com.example.Smart_Spend.entity.Budget;
+import com.example.Smart_Spend.entity.MaintenanceRun;
+import com.example.Smart_Spend.repository.AnalyticsRepository;
 import com.example.Smart_Spend.repository.UserRepository;
+import com.example.Smart_Spend.repository.ExpenseMonthRollupRepository;
 import com.example.Smart_Spend.repository.ExpenseRepository;
 import com.example.Smart_Spend.repository.BudgetRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,48 +46,57 @@ public class AdminService {
     private final UserRepository userRepository;
     private final ExpenseRepository expenseRepository;
     private final BudgetRepository budgetRepository;
+    private final ExpenseMonthRollupRepository rollupRepository;
+    private final ExpenseArchiveService archiveService;
+    private final MaintenanceService maintenanceService;
+    private final UserDeletionService userDeletionService;
+    private final ObjectProvider<ReplicaRoutingDataSource> replicaRouting;
+    private final AnalyticsBulkhead analyticsBulkhead;
+    private final AnalyticsRepository analyticsRepository;
+    private final SingleFlight singleFlight;
+    private final ApplicationEventPublisher eventPublisher;
 
-    @Transactional(readOnly = true)
+    private static final int MAX_USER_PAGE_SIZE = 100;
+    private static final Set<String> EXPORT_TYPES = Set.of("users", "expenses", "budgets");
+    private static final LocalDateTime KEYSET_START = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    // Analytics run on the bulkhead's own pool; NOT_SUPPORTED keeps this method from
+    // holding an interactive-pool connection while it waits for them.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Map<String, Object> getDashboardStats() {
         log.debug("Getting dashboard statistics");
         Map<String, Object> stats = new HashMap<>();
         
         try {
-            // Basic counts
-            long totalUsers = userRepository.count();
-            long totalExpenses = expenseRepository.count();
-            
-            // Total amount calculation
-            List<Expense> allExpenses = expenseRepository.findAll();
-            BigDecimal totalAmount = allExpenses.stream()
-                .filter(e -> e.getType() == Expense.TransactionType.EXPENSE)
-                .map(Expense::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            // Active users (users with expenses in last 30 days)
-            LocalDate thirtyDaysAgo = LocalDate.now().minusDays(30);
-            Set<Long> activeUserIds = allExpenses.stream()
-                .filter(e -> e.getTransactionDate().isAfter(thirtyDaysAgo))
-                .map(e -> e.getUser().getId())
-                .collect(Collectors.toSet());
-            
-            // Recent users - Handle null verification status safely
-            List<User> recentUsers = userRepository.findAll().stream()
-                .sorted((u1, u2) -> u2.getCreatedAt().compareTo(u1.getCreatedAt()))
-                .limit(5)
-                .collect(Collectors.toList());
-            
-            // Monthly stats for chart
-            Map<String, BigDecimal> monthlyStats = getMonthlyExpenseStats();
-            
-            // Category stats
-            YearMonth currentMonth = YearMonth.now();
-            Map<String, BigDecimal> categoryStats = getCategoryStats(currentMonth.getMonthValue(), currentMonth.getYear());
+            // Several tabs refreshing at once share one computation and one bulkhead slot
+            Map<String, Object> aggregates = singleFlight.execute("admin-dashboard-stats", "",
+                    () -> analyticsBulkhead.execute("Dashboard statistics", () -> {
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("totalUsers", analyticsRepository.countUsers());
+                    result.put("totalExpenses", analyticsRepository.countExpenses());
+                    result.put("totalAmount", analyticsRepository.totalExpenseAmount());
+                    // Active users (users with expenses in last 30 days)
+                    result.put("activeUsers", analyticsRepository.countActiveUsersSince(LocalDate.now().minusDays(30)));
+                    result.put("monthlyStats", getMonthlyExpenseStats());
+                    result.put("categoryStats", getCategoryStats(YearMonth.now()));
+                    return result;
+                }));
+            long totalUsers = (Long) aggregates.get("totalUsers");
+            long totalExpenses = (Long) aggregates.get("totalExpenses");
+            BigDecimal totalAmount = (BigDecimal) aggregates.get("totalAmount");
+            long activeUsers = (Long) aggregates.get("activeUsers");
+            @SuppressWarnings("unchecked")
+            Map<String, BigDecimal> monthlyStats = (Map<String, BigDecimal>) aggregates.get("monthlyStats");
+            @SuppressWarnings("unchecked")
+            Map<String, BigDecimal> categoryStats = (Map<String, BigDecimal>) aggregates.get("categoryStats");
+
+            // Recent users via the (created_at, id) keyset index
+            List<User> recentUsers = searchUsers(null, null, null, null, 5).users();
             
             stats.put("totalUsers", totalUsers);
             stats.put("totalExpenses", totalExpenses);
             stats.put("totalAmount", totalAmount);
-            stats.put("activeUsers", activeUserIds.size());
+            stats.put("activeUsers", activeUsers);
             stats.put("recentUsers", recentUsers);
             stats.put("monthlyStats", monthlyStats);
             stats.put("categoryStats", categoryStats);
@@ -81,7 +109,7 @@ public class AdminService {
             stats.put("totalUsers", 0L);
             stats.put("totalExpenses", 0L);
             stats.put("totalAmount", BigDecimal.ZERO);
-            stats.put("activeUsers", 0);
+            stats.put("activeUsers", 0L);
             stats.put("recentUsers", Collections.emptyList());
             stats.put("monthlyStats", Collections.emptyMap());
             stats.put("categoryStats", Collections.emptyMap());
@@ -90,16 +118,52 @@ public class AdminService {
     }
 
     @Transactional(readOnly = true)
-    public List<User> getAllUsers() {
-        log.debug("Getting all users");
-        try {
-            return userRepository.findAll().stream()
-                    .sorted((u1, u2) -> u2.getCreatedAt().compareTo(u1.getCreatedAt()))
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            log.error("Error getting all users: {}", e.getMessage(), e);
-            return Collections.emptyList();
+    public UserSearchPage searchUsers(String query, User.Role role, Boolean verified, String cursor, int size) {
+        log.debug("Searching users: query={}, role={}, verified={}, cursor={}", query, role, verified, cursor);
+        int pageSize = Math.max(1, Math.min(size, MAX_USER_PAGE_SIZE));
+
+        LocalDateTime afterCreatedAt = KEYSET_START;
+        long afterId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+                afterCreatedAt = LocalDateTime.parse(parts[0]);
+                afterId = Long.parseLong(parts[1]);
+            } catch (RuntimeException e) {
+                log.warn("Ignoring malformed user search cursor: {}", cursor);
+            }
         }
+
+        // Fetch one extra row to know whether another page exists
+        String pattern = toSearchPattern(query);
+        String roleName = role != null ? role.name() : "";
+        boolean anyVerified = verified == null;
+        boolean onlyVerified = verified != null && verified;
+        List<User> users = pattern == null
+                ? userRepository.searchUsers(roleName, anyVerified, onlyVerified, afterCreatedAt, afterId, pageSize + 1)
+                : userRepository.searchUsersMatching(pattern, roleName, anyVerified, onlyVerified,
+                        afterCreatedAt, afterId, pageSize + 1);
+
+        String nextCursor = null;
+        if (users.size() > pageSize) {
+            users = new ArrayList<>(users.subList(0, pageSize));
+            User last = users.get(pageSize - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.getCreatedAt() + "|" + last.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+        return new UserSearchPage(users, nextCursor);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Long> getUserCounts() {
+        long total = userRepository.count();
+        long verified = userRepository.countByEmailVerifiedTrue();
+        Map<String, Long> counts = new HashMap<>();
+        counts.put("total", total);
+        counts.put("verified", verified);
+        counts.put("pending", total - verified);
+        counts.put("admins", userRepository.countByRole(User.Role.ADMIN));
+        return counts;
     }
 
     @Transactional(readOnly = true)
@@ -113,6 +177,9 @@ public class AdminService {
         log.debug("Toggling user status for id: {}", id);
         try {
             User user = getUserById(id);
+            if (user.isPendingDeletion()) {
+                throw new RuntimeException("User is being deleted");
+            }
             
             // Safe null handling for Boolean field
             Boolean currentStatus = user.getEmailVerified();
@@ -126,6 +193,7 @@ public class AdminService {
             }
             
             userRepository.save(user);
+            eventPublisher.publishEvent(new UserAccountChangedEvent(user.getId()));
             log.info("User status toggled successfully for: {}", user.getEmail());
         } catch (Exception e) {
             log.error("Error toggling user status for id {}: {}", id, e.getMessage(), e);
@@ -134,95 +202,72 @@ public class AdminService {
     }
 
     public void deleteUser(Long id) {
-        log.debug("Deleting user with id: {}", id);
+        log.debug("Requesting deletion of user with id: {}", id);
         try {
-            User user = getUserById(id);
-            if (user.getRole() == User.Role.ADMIN) {
-                throw new RuntimeException("Cannot delete admin user");
-            }
-            userRepository.deleteById(id);
-            log.info("User deleted: {}", user.getEmail());
+            userDeletionService.requestDeletion(id);
         } catch (Exception e) {
             log.error("Error deleting user with id {}: {}", id, e.getMessage(), e);
             throw new RuntimeException("Failed to delete user: " + e.getMessage());
         }
     }
 
-    @Transactional(readOnly = true)
-    public List<Expense> getUserExpenses(Long userId) {
-        log.debug("Getting expenses for user: {}", userId);
-        try {
-            return expenseRepository.findByUserIdOrderByTransactionDateDesc(userId);
-        } catch (Exception e) {
-            log.error("Error getting expenses for user {}: {}", userId, e.getMessage(), e);
-            return Collections.emptyList();
-        }
-    }
+    private static final int DETAILS_RECENT_EXPENSES = 10;
 
     @Transactional(readOnly = true)
-    public List<Budget> getUserBudgets(Long userId) {
-        log.debug("Getting budgets for user: {}", userId);
-        try {
-            return budgetRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        } catch (Exception e) {
-            log.error("Error getting budgets for user {}: {}", userId, e.getMessage(), e);
-            return Collections.emptyList();
-        }
-    }
+    public UserDetailsView getUserDetails(Long userId) {
+        log.debug("Getting details for user: {}", userId);
+        User user = getUserById(userId);
 
-    @Transactional(readOnly = true)
-    public Map<String, Object> getUserStats(Long userId) {
-        log.debug("Getting user stats for: {}", userId);
-        Map<String, Object> stats = new HashMap<>();
-        
-        try {
-            List<Expense> userExpenses = expenseRepository.findByUserIdOrderByTransactionDateDesc(userId);
-            
-            BigDecimal totalExpenses = userExpenses.stream()
-                .filter(e -> e.getType() == Expense.TransactionType.EXPENSE)
-                .map(Expense::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-                
-            BigDecimal totalIncome = userExpenses.stream()
-                .filter(e -> e.getType() == Expense.TransactionType.INCOME)
-                .map(Expense::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            // Current month expenses
-            YearMonth currentMonth = YearMonth.now();
-            BigDecimal currentMonthExpenses = expenseRepository.getTotalExpensesByUserAndMonth(
-                userId, currentMonth.getMonthValue(), currentMonth.getYear());
-            
-            stats.put("totalExpenses", totalExpenses);
-            stats.put("totalIncome", totalIncome);
-            stats.put("currentMonthExpenses", currentMonthExpenses != null ? currentMonthExpenses : BigDecimal.ZERO);
-            stats.put("balance", totalIncome.subtract(totalExpenses));
-            
-            return stats;
-        } catch (Exception e) {
-            log.error("Error calculating user stats for user {}: {}", userId, e.getMessage(), e);
-            stats.put("totalExpenses", BigDecimal.ZERO);
-            stats.put("totalIncome", BigDecimal.ZERO);
-            stats.put("currentMonthExpenses", BigDecimal.ZERO);
-            stats.put("balance", BigDecimal.ZERO);
-            return stats;
+        BigDecimal totalExpenses = BigDecimal.ZERO;
+        BigDecimal totalIncome = BigDecimal.ZERO;
+        long expenseCount = expenseRepository.countByUserId(userId);
+        // Archived months count through their rollups
+        List<Object[]> totals = new ArrayList<>(expenseRepository.getTotalsByType(userId));
+        for (Object[] row : rollupRepository.getTotalsByType(userId)) {
+            totals.add(row);
+            expenseCount += ((Number) row[2]).longValue();
         }
+        for (Object[] row : totals) {
+            if (row[0] == Expense.TransactionType.INCOME) {
+                totalIncome = totalIncome.add((BigDecimal) row[1]);
+            } else {
+                totalExpenses = totalExpenses.add((BigDecimal) row[1]);
+            }
+        }
+        YearMonth currentMonth = YearMonth.now();
+        BigDecimal currentMonthExpenses = expenseRepository.getTotalExpensesByUserAndMonth(
+                userId, currentMonth.getMonthValue(), currentMonth.getYear());
+
+        return new UserDetailsView(user,
+                expenseRepository.findRecentTransactions(userId, Limit.of(DETAILS_RECENT_EXPENSES)),
+                expenseCount,
+                budgetRepository.findByUserIdOrderByCreatedAtDesc(userId),
+                totalExpenses, totalIncome,
+                currentMonthExpenses != null ? currentMonthExpenses : BigDecimal.ZERO);
     }
 
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Map<String, Object> getReports() {
         log.debug("Getting reports");
         Map<String, Object> reports = new HashMap<>();
         
         try {
+            Map<String, Object> aggregates = analyticsBulkhead.execute("Reports", () -> {
+                Map<String, Object> result = new HashMap<>();
+                result.put("userGrowth", getUserGrowthReport());
+                result.put("expenseTrends", getExpenseTrendReport());
+                result.put("topCategories", getTopCategoriesReport());
+                return result;
+            });
+
             // User growth report
-            Map<String, Long> userGrowth = getUserGrowthReport();
+            Object userGrowth = aggregates.get("userGrowth");
             
             // Expense trends
-            Map<String, BigDecimal> expenseTrends = getExpenseTrendReport();
+            Object expenseTrends = aggregates.get("expenseTrends");
             
             // Top categories
-            Map<String, BigDecimal> topCategories = getTopCategoriesReport();
+            Object topCategories = aggregates.get("topCategories");
             
             // System health
             Map<String, Object> systemHealth = getSystemHealthReport();
@@ -243,24 +288,32 @@ public class AdminService {
         }
     }
 
-    @Transactional(readOnly = true)
-    public String exportReport(String type) {
+    public static boolean isExportType(String type) {
+        return EXPORT_TYPES.contains(type.toLowerCase());
+    }
+
+    /**
+     * Writes the CSV report to {@code out} row by row as the cursor delivers them, so no
+     * export is ever held in memory. The queries run in the analytics bulkhead while this
+     * thread does the writing (see {@link AnalyticsBulkhead#stream}). A failure after the
+     * header is appended as a last line, since the response status has already been sent.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void exportReport(String type, OutputStream out) throws IOException {
         log.debug("Exporting report of type: {}", type);
+        Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
         try {
             switch (type.toLowerCase()) {
-                case "users":
-                    return exportUsersReport();
-                case "expenses":
-                    return exportExpensesReport();
-                case "budgets":
-                    return exportBudgetsReport();
-                default:
-                    return "Invalid report type";
+                case "users" -> analyticsBulkhead.stream("Users export", this::exportUsersReport, csv);
+                case "expenses" -> analyticsBulkhead.stream("Expenses export", this::exportExpensesReport, csv);
+                case "budgets" -> analyticsBulkhead.stream("Budgets export", this::exportBudgetsReport, csv);
+                default -> csv.write("Invalid report type");
             }
         } catch (Exception e) {
             log.error("Error exporting {} report: {}", type, e.getMessage(), e);
-            return "Error generating " + type + " report: " + e.getMessage();
+            csv.write("\nError generating " + type + " report: " + e.getMessage() + "\n");
         }
+        csv.flush();
     }
 
     @Transactional(readOnly = true)
@@ -285,6 +338,7 @@ public class AdminService {
             info.put("totalUsers", userRepository.count());
             info.put("totalExpenses", expenseRepository.count());
             info.put("totalBudgets", budgetRepository.count());
+            replicaRouting.ifAvailable(routing -> info.put("replicaHealth", routing.getReplicaHealth()));
             
             // System uptime (simplified)
             info.put("serverTime", LocalDateTime.now());
@@ -296,57 +350,21 @@ public class AdminService {
         }
     }
 
-    public void performSystemCleanup() {
-        log.info("Starting system cleanup");
-        try {
-            // Clean up old verification tokens
-            List<User> usersWithOldTokens = userRepository.findAll().stream()
-                .filter(u -> u.getVerificationToken() != null && u.getCreatedAt().isBefore(LocalDateTime.now().minusDays(7)))
-                .collect(Collectors.toList());
-            
-            usersWithOldTokens.forEach(user -> {
-                user.setVerificationToken(null);
-                userRepository.save(user);
-            });
-            
-            // Clean up expired reset tokens
-            List<User> usersWithExpiredResetTokens = userRepository.findAll().stream()
-                .filter(u -> u.getResetToken() != null && 
-                       u.getResetTokenExpiry() != null && 
-                       u.getResetTokenExpiry().isBefore(LocalDateTime.now()))
-                .collect(Collectors.toList());
-            
-            usersWithExpiredResetTokens.forEach(user -> {
-                user.setResetToken(null);
-                user.setResetTokenExpiry(null);
-                userRepository.save(user);
-            });
-            
-            log.info("System cleanup completed successfully. Cleaned {} verification tokens and {} reset tokens", 
-                    usersWithOldTokens.size(), usersWithExpiredResetTokens.size());
-        } catch (Exception e) {
-            log.error("Error during system cleanup: {}", e.getMessage(), e);
-            throw new RuntimeException("System cleanup failed: " + e.getMessage());
-        }
+    public List<MaintenanceRun> performSystemCleanup() {
+        log.info("Starting manual system cleanup");
+        return maintenanceService.runAll();
     }
 
-    // Private helper methods
-    @Transactional(readOnly = true)
+    // Private helper methods (called on the analytics bulkhead)
     private Map<String, BigDecimal> getMonthlyExpenseStats() {
         Map<String, BigDecimal> monthlyStats = new LinkedHashMap<>();
         
         try {
+            YearMonth from = YearMonth.now().minusMonths(5);
+            Map<YearMonth, BigDecimal> totals = analyticsRepository.monthlyExpenseTotals(from);
             for (int i = 5; i >= 0; i--) {
                 YearMonth month = YearMonth.now().minusMonths(i);
-                String key = month.getMonth().name().substring(0, 3) + " " + month.getYear();
-                
-                BigDecimal monthTotal = expenseRepository.findAll().stream()
-                    .filter(e -> e.getType() == Expense.TransactionType.EXPENSE)
-                    .filter(e -> YearMonth.from(e.getTransactionDate()).equals(month))
-                    .map(Expense::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-                
-                monthlyStats.put(key, monthTotal);
+                monthlyStats.put(monthLabel(month), totals.getOrDefault(month, BigDecimal.ZERO));
             }
         } catch (Exception e) {
             log.error("Error calculating monthly stats: {}", e.getMessage(), e);
@@ -355,37 +373,23 @@ public class AdminService {
         return monthlyStats;
     }
 
-    @Transactional(readOnly = true)
-    private Map<String, BigDecimal> getCategoryStats(int month, int year) {
+    private Map<String, BigDecimal> getCategoryStats(YearMonth month) {
         try {
-            List<Expense> allExpenses = expenseRepository.findAll();
-            return allExpenses.stream()
-                .filter(e -> e.getType() == Expense.TransactionType.EXPENSE)
-                .filter(e -> e.getTransactionDate().getMonthValue() == month && e.getTransactionDate().getYear() == year)
-                .collect(Collectors.groupingBy(
-                    Expense::getCategory,
-                    Collectors.reducing(BigDecimal.ZERO, Expense::getAmount, BigDecimal::add)
-                ));
+            return analyticsRepository.categoryTotals(month);
         } catch (Exception e) {
             log.error("Error calculating category stats: {}", e.getMessage(), e);
             return Collections.emptyMap();
         }
     }
 
-    @Transactional(readOnly = true)
     private Map<String, Long> getUserGrowthReport() {
         Map<String, Long> growth = new LinkedHashMap<>();
         
         try {
+            Map<YearMonth, Long> signups = analyticsRepository.monthlyUserSignups(YearMonth.now().minusMonths(11));
             for (int i = 11; i >= 0; i--) {
                 YearMonth month = YearMonth.now().minusMonths(i);
-                String key = month.getMonth().name().substring(0, 3) + " " + month.getYear();
-                
-                long count = userRepository.findAll().stream()
-                    .filter(u -> YearMonth.from(u.getCreatedAt().toLocalDate()).equals(month))
-                    .count();
-                
-                growth.put(key, count);
+                growth.put(monthLabel(month), signups.getOrDefault(month, 0L));
             }
         } catch (Exception e) {
             log.error("Error calculating user growth: {}", e.getMessage(), e);
@@ -394,15 +398,16 @@ public class AdminService {
         return growth;
     }
 
-    @Transactional(readOnly = true)
     private Map<String, BigDecimal> getExpenseTrendReport() {
         return getMonthlyExpenseStats();
     }
 
-    @Transactional(readOnly = true)
     private Map<String, BigDecimal> getTopCategoriesReport() {
-        YearMonth currentMonth = YearMonth.now();
-        return getCategoryStats(currentMonth.getMonthValue(), currentMonth.getYear());
+        return getCategoryStats(YearMonth.now());
+    }
+
+    private String monthLabel(YearMonth month) {
+        return month.getMonth().name().substring(0, 3) + " " + month.getYear();
     }
 
     @Transactional(readOnly = true)
@@ -433,78 +438,76 @@ public class AdminService {
         return health;
     }
 
-    @Transactional(readOnly = true)
-    private String exportUsersReport() {
-        try {
-            List<User> users = userRepository.findAll();
-            StringBuilder csv = new StringBuilder();
-            csv.append("ID,Email,First Name,Last Name,Role,Verified,Created At\n");
-            
-            for (User user : users) {
-                csv.append(user.getId()).append(",")
-                   .append(csvEscape(user.getEmail())).append(",")
-                   .append(csvEscape(user.getFirstName())).append(",")
-                   .append(csvEscape(user.getLastName())).append(",")
-                   .append(user.getRole()).append(",")
-                   .append(user.isEmailVerified()).append(",") // This now safely handles nulls
-                   .append(user.getCreatedAt()).append("\n");
-            }
-            
-            return csv.toString();
-        } catch (Exception e) {
-            log.error("Error exporting users report: {}", e.getMessage(), e);
-            return "Error generating users report: " + e.getMessage();
-        }
+    private void exportUsersReport(Consumer<String> csv) {
+        csv.accept("ID,Email,First Name,Last Name,Role,Verified,Created At");
+        analyticsRepository.forEachUser(rs -> csv.accept(rs.getLong("id") + "," +
+                csvEscape(rs.getString("email")) + "," +
+                csvEscape(rs.getString("first_name")) + "," +
+                csvEscape(rs.getString("last_name")) + "," +
+                rs.getString("role") + "," +
+                rs.getBoolean("email_verified") + "," + // NULL reads as false
+                toLocalDateTime(rs.getTimestamp("created_at"))));
     }
 
-    @Transactional(readOnly = true)
-    private String exportExpensesReport() {
-        try {
-            List<Expense> expenses = expenseRepository.findAll();
-            StringBuilder csv = new StringBuilder();
-            csv.append("ID,User Email,Title,Amount,Category,Type,Date,Description\n");
-            
-            for (Expense expense : expenses) {
-                csv.append(expense.getId()).append(",")
-                   .append(csvEscape(expense.getUser().getEmail())).append(",")
-                   .append(csvEscape(expense.getTitle())).append(",")
-                   .append(expense.getAmount()).append(",")
-                   .append(csvEscape(expense.getCategory())).append(",")
-                   .append(expense.getType()).append(",")
-                   .append(expense.getTransactionDate()).append(",")
-                   .append(csvEscape(expense.getDescription() != null ? expense.getDescription() : ""))
-                   .append("\n");
+    private void exportExpensesReport(Consumer<String> csv) {
+        csv.accept("ID,User Email,Title,Amount,Category,Type,Date,Description");
+        analyticsRepository.forEachExpense(rs -> {
+            String description = rs.getString("description");
+            csv.accept(rs.getLong("id") + "," +
+                    csvEscape(rs.getString("email")) + "," +
+                    csvEscape(rs.getString("title")) + "," +
+                    rs.getBigDecimal("amount") + "," +
+                    csvEscape(rs.getString("category")) + "," +
+                    rs.getString("type") + "," +
+                    rs.getDate("transaction_date").toLocalDate() + "," +
+                    csvEscape(description != null ? description : ""));
+        });
+
+        // Archived months follow, read from their segment files a block of users at a time
+        archiveService.forEachArchived(rows -> {
+            Map<Long, String> emails = analyticsRepository.findEmails(
+                    rows.stream().map(ExpenseSegmentFile.Row::userId).collect(Collectors.toSet()));
+            for (ExpenseSegmentFile.Row row : rows) {
+                String email = emails.get(row.userId());
+                if (email == null) {
+                    continue; // deleted since; dropped from the file by the next archive run
+                }
+                csv.accept(row.id() + "," +
+                        csvEscape(email) + "," +
+                        csvEscape(row.title()) + "," +
+                        row.amount() + "," +
+                        csvEscape(row.category()) + "," +
+                        row.type() + "," +
+                        row.transactionDate() + "," +
+                        csvEscape(row.description() != null ? row.description() : ""));
             }
-            
-            return csv.toString();
-        } catch (Exception e) {
-            log.error("Error exporting expenses report: {}", e.getMessage(), e);
-            return "Error generating expenses report: " + e.getMessage();
-        }
+        });
     }
 
-    @Transactional(readOnly = true)
-    private String exportBudgetsReport() {
-        try {
-            List<Budget> budgets = budgetRepository.findAll();
-            StringBuilder csv = new StringBuilder();
-            csv.append("ID,User Email,Category,Amount,Month,Year,Created At\n");
-            
-            for (Budget budget : budgets) {
-                csv.append(budget.getId()).append(",")
-                   .append(csvEscape(budget.getUser().getEmail())).append(",")
-                   .append(csvEscape(budget.getCategory())).append(",")
-                   .append(budget.getAmount()).append(",")
-                   .append(budget.getMonth()).append(",")
-                   .append(budget.getYear()).append(",")
-                   .append(budget.getCreatedAt()).append("\n");
-            }
-            
-            return csv.toString();
-        } catch (Exception e) {
-            log.error("Error exporting budgets report: {}", e.getMessage(), e);
-            return "Error generating budgets report: " + e.getMessage();
-        }
+    private void exportBudgetsReport(Consumer<String> csv) {
+        csv.accept("ID,User Email,Category,Amount,Month,Year,Created At");
+        analyticsRepository.forEachBudget(rs -> csv.accept(rs.getLong("id") + "," +
+                csvEscape(rs.getString("email")) + "," +
+                csvEscape(rs.getString("category")) + "," +
+                rs.getBigDecimal("amount") + "," +
+                rs.getInt("month") + "," +
+                rs.getInt("year") + "," +
+                toLocalDateTime(rs.getTimestamp("created_at"))));
+    }
+
+    private LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    // Short terms become a prefix match (btree text_pattern_ops index); from three
+    // characters on a substring match is served by the pg_trgm GIN indexes. Null for no filter.
+    private String toSearchPattern(String query) {
+        if (query == null || query.isBlank()) return null;
+        String term = query.trim().toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return term.length() < 3 ? term + "%" : "%" + term + "%";
     }
 
     private String csvEscape(String value) {
@@ -0,0 +1,22 @@
+package com.example.Smart_Spend.service;
+
+/**
+ * Published when a user's budgets are created, changed or removed. {@code budgetId} names the
+ * budget written through the entity manager; it is null for native statements that Hibernate's
+ * cache does not see, which may have touched any of the user's budgets. Relayed to the other
+ * nodes like {@link UserDataChangedEvent}.
+ */
+public record BudgetChangedEvent(Long userId, Long budgetId, boolean remote) {
+
+    public BudgetChangedEvent(Long userId) {
+        this(userId, null, false);
+    }
+
+    public BudgetChangedEvent(Long userId, Long budgetId) {
+        this(userId, budgetId, false);
+    }
+
+    public BudgetChangedEvent(Long userId, boolean remote) {
+        this(userId, null, remote);
+    }
+}
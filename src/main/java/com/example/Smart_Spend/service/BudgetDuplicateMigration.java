@@ -0,0 +1,88 @@
+package com.example.Smart_Spend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Creates the unique index on budgets (user, category, month) that lookups and the rollover
+ * copy (ON CONFLICT DO NOTHING) rely on. Budgets created twice before the index existed
+ * would make it fail, so all but the oldest of each group are first copied into
+ * budgets_removed_duplicates, logged and deleted. Once the index exists every startup is a no-op.
+ */
+@Component
+@Slf4j
+public class BudgetDuplicateMigration implements CommandLineRunner {
+
+    private static final String INDEX = "uk_budgets_user_category_period";
+    private static final String DUPLICATES = "SELECT b.id FROM budgets b JOIN budgets k " +
+            "ON k.user_id = b.user_id AND k.category = b.category AND k.year = b.year AND k.month = b.month AND k.id < b.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DataVersionService dataVersionService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public BudgetDuplicateMigration(JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    DataVersionService dataVersionService,
+                                    ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dataVersionService = dataVersionService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void run(String... args) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> migrate());
+        } catch (RuntimeException e) {
+            log.error("Could not add the unique budget index: {}", e.getMessage(), e);
+        }
+    }
+
+    private void migrate() {
+        if (indexExists()) {
+            return;
+        }
+        // Serializes nodes starting together; released at commit
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('budget-duplicate-migration'))");
+        if (indexExists()) {
+            return;
+        }
+        // Writers inserting a duplicate meanwhile would make the index build fail
+        jdbcTemplate.execute("LOCK TABLE budgets IN SHARE ROW EXCLUSIVE MODE");
+
+        List<Long> userIds = jdbcTemplate.queryForList(
+                "SELECT DISTINCT user_id FROM budgets WHERE id IN (" + DUPLICATES + ")", Long.class);
+        if (!userIds.isEmpty()) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS budgets_removed_duplicates " +
+                    "(LIKE budgets, removed_at TIMESTAMP NOT NULL DEFAULT now())");
+            int archived = jdbcTemplate.update("INSERT INTO budgets_removed_duplicates " +
+                    "SELECT b.*, now() FROM budgets b WHERE b.id IN (" + DUPLICATES + ")");
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "DELETE FROM budgets WHERE id IN (" + DUPLICATES + ") RETURNING id", Long.class);
+            if (archived != ids.size()) {
+                throw new IllegalStateException("Archived " + archived + " duplicate budgets but deleted " + ids.size());
+            }
+            log.warn("Removed {} duplicate budgets of {} users (ids {}); copies kept in budgets_removed_duplicates",
+                    ids.size(), userIds.size(), ids);
+            dataVersionService.bumpAll(userIds);
+            userIds.forEach(userId -> eventPublisher.publishEvent(new BudgetChangedEvent(userId)));
+        }
+
+        jdbcTemplate.execute("CREATE UNIQUE INDEX " + INDEX + " ON budgets (user_id, category, year, month)");
+        log.info("Created unique index {}", INDEX);
+    }
+
+    private boolean indexExists() {
+        return jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, INDEX);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.Smart_Spend.service;
+
+import com.example.Smart_Spend.dto.BudgetProgress;
+import com.example.Smart_Spend.repository.BudgetRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Budget progress (spent, remaining, percentage, projected month-end spend) for a
+ * user's budgets, computed by one grouped query and cached per (user, data version, month).
+ * A null month means all of the user's budgets, as listed on /budgets.
+ * <p>
+ * The version is read before computing, so a write that commits meanwhile (or a replica that
+ * had not caught up yet) only ever fills the entry of the version it replaced and is never
+ * served for the new one. Older versions are dropped on {@link UserDataChangedEvent} (from any
+ * node), and every entry when the day changes (projections depend on today's date).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BudgetProgressService {
+
+    private static final BigDecimal WARNING_RATIO = BigDecimal.valueOf(0.8);
+
+    private record Key(Long userId, long version, YearMonth month) {
+    }
+
+    private record Entry(LocalDate computedOn, List<BudgetProgress> progress) {
+    }
+
+    private final BudgetRepository budgetRepository;
+    private final DataVersionService dataVersionService;
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+
+    @Value("${app.budget-progress.cache-max-entries:10000}")
+    private int maxEntries = 10000;
+
+    @Transactional(readOnly = true)
+    public List<BudgetProgress> getProgress(Long userId, YearMonth month) {
+        return cached(new Key(userId, currentVersion(userId), Objects.requireNonNull(month)));
+    }
+
+    @Transactional(readOnly = true)
+    public List<BudgetProgress> getAllProgress(Long userId) {
+        return cached(new Key(userId, currentVersion(userId), null));
+    }
+
+    private long currentVersion(Long userId) {
+        return dataVersionService.current(userId).getVersion();
+    }
+
+    @EventListener
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        cache.keySet().removeIf(key -> key.userId().equals(event.userId()) && key.version() < event.version());
+    }
+
+    @EventListener
+    public void onCacheFlush(CacheFlushEvent event) {
+        cache.clear();
+    }
+
+    private List<BudgetProgress> cached(Key key) {
+        LocalDate today = LocalDate.now();
+        Entry entry = cache.get(key);
+        if (entry != null && entry.computedOn().equals(today)) {
+            return entry.progress();
+        }
+        List<BudgetProgress> progress = compute(key, today);
+        if (cache.size() >= maxEntries) {
+            // Simple bound: start over rather than track recency
+            cache.clear();
+        }
+        cache.put(key, new Entry(today, progress));
+        return progress;
+    }
+
+    private List<BudgetProgress> compute(Key key, LocalDate today) {
+        log.debug("Computing budget progress for user: {} month: {}", key.userId(), key.month());
+        int month = key.month() != null ? key.month().getMonthValue() : 0;
+        int year = key.month() != null ? key.month().getYear() : 0;
+        return budgetRepository.findProgressRows(key.userId(), month, year).stream()
+                .map(row -> toProgress(row, today))
+                .toList();
+    }
+
+    private BudgetProgress toProgress(Object[] row, LocalDate today) {
+        Long budgetId = ((Number) row[0]).longValue();
+        String category = (String) row[1];
+        YearMonth period = YearMonth.of(((Number) row[3]).intValue(), ((Number) row[2]).intValue());
+        BigDecimal budget = (BigDecimal) row[4];
+        BigDecimal spent = row[5] != null ? (BigDecimal) row[5] : BigDecimal.ZERO;
+
+        BigDecimal projected = project(spent, period, today);
+        int percent = budget.signum() > 0
+                ? spent.multiply(BigDecimal.valueOf(100)).divide(budget, 0, RoundingMode.HALF_UP).intValue()
+                : (spent.signum() > 0 ? 100 : 0);
+
+        BudgetProgress.Status status;
+        if (spent.compareTo(budget) > 0) {
+            status = BudgetProgress.Status.EXCEEDED;
+        } else if (projected.compareTo(budget) > 0) {
+            status = BudgetProgress.Status.DANGER;
+        } else if (spent.compareTo(budget.multiply(WARNING_RATIO)) >= 0) {
+            status = BudgetProgress.Status.WARNING;
+        } else {
+            status = BudgetProgress.Status.HEALTHY;
+        }
+
+        return new BudgetProgress(budgetId, category, period.getMonthValue(), period.getYear(),
+                budget, spent, budget.subtract(spent), percent, projected, status);
+    }
+
+    // Linear run-rate for the current month; past and future months are what they are
+    static BigDecimal project(BigDecimal spent, YearMonth period, LocalDate today) {
+        if (!period.equals(YearMonth.from(today))) {
+            return spent;
+        }
+        return spent.multiply(BigDecimal.valueOf(period.lengthOfMonth()))
+                .divide(BigDecimal.valueOf(today.getDayOfMonth()), 2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.Smart_Spend.service;
+
+import com.example.Smart_Spend.entity.BudgetRolloverPartition;
+import com.example.Smart_Spend.entity.MaintenanceRun;
+import com.example.Smart_Spend.repository.BudgetRepository;
+import com.example.Smart_Spend.repository.BudgetRolloverPartitionRepository;
+import com.example.Smart_Spend.repository.BudgetSummaryRepository;
+import com.example.Smart_Spend.repository.MaintenanceRunRepository;
+import com.example.Smart_Spend.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Month-end batch: copies last month's budgets into the new month for users who opted in,
+ * and writes a {@link com.example.Smart_Spend.entity.BudgetSummary} of the finished month
+ * for everyone who had budgets.
+ *
+ * Users are split into {@code id % partitions} partitions processed in parallel; each
+ * partition walks the user primary key in chunks, and every chunk is a few set-based
+ * statements committed together with the partition cursor. The job is triggered hourly on
+ * every node and runs on whichever holds the cluster lease; it resumes unfinished or failed
+ * partitions (also after the running node dies) and is a no-op once the month is done.
+ */
+@Service
+@Slf4j
+public class BudgetRolloverService {
+
+    private static final String JOB_NAME = "budget-rollover";
+
+    private final BudgetRolloverPartitionRepository partitionRepository;
+    private final UserRepository userRepository;
+    private final BudgetRepository budgetRepository;
+    private final BudgetSummaryRepository summaryRepository;
+    private final DataVersionService dataVersionService;
+    private final MaintenanceRunRepository runRepository;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterJobService clusterJobs;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.budget-rollover.partitions:8}")
+    private int partitions;
+
+    @Value("${app.budget-rollover.threads:4}")
+    private int threads;
+
+    @Value("${app.budget-rollover.batch-size:1000}")
+    private int batchSize;
+
+    public BudgetRolloverService(BudgetRolloverPartitionRepository partitionRepository,
+                                 UserRepository userRepository,
+                                 BudgetRepository budgetRepository,
+                                 BudgetSummaryRepository summaryRepository,
+                                 DataVersionService dataVersionService,
+                                 MaintenanceRunRepository runRepository,
+                                 MeterRegistry meterRegistry,
+                                 PlatformTransactionManager transactionManager,
+                                 ClusterJobService clusterJobs,
+                                 ApplicationEventPublisher eventPublisher) {
+        this.partitionRepository = partitionRepository;
+        this.userRepository = userRepository;
+        this.budgetRepository = budgetRepository;
+        this.summaryRepository = summaryRepository;
+        this.dataVersionService = dataVersionService;
+        this.runRepository = runRepository;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clusterJobs = clusterJobs;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Scheduled(cron = "${app.budget-rollover.cron:0 15 * * * *}")
+    public void scheduledRun() {
+        try {
+            clusterJobs.runExclusive(JOB_NAME, () -> rollInto(YearMonth.now()));
+        } catch (Exception e) {
+            log.warn("Scheduled budget rollover skipped: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rolls budgets from the previous month into {@code target}; a no-op once every partition
+     * of that month has completed. Only called while holding the job's cluster lease.
+     */
+    private void rollInto(YearMonth target) {
+        List<BudgetRolloverPartition> pending = pendingPartitions(target);
+        if (pending.isEmpty()) {
+            return;
+        }
+        log.info("Rolling budgets into {} ({} partitions pending)", target, pending.size());
+        run(target, pending);
+    }
+
+    private List<BudgetRolloverPartition> pendingPartitions(YearMonth target) {
+        List<BudgetRolloverPartition> existing =
+                partitionRepository.findByYearAndMonthOrderByPartitionNo(target.getYear(), target.getMonthValue());
+        if (existing.isEmpty()) {
+            // The partition count is fixed per month, so changing the setting never reshuffles a resumed run
+            existing = partitionRepository.saveAll(IntStream.range(0, partitions)
+                    .mapToObj(i -> {
+                        BudgetRolloverPartition partition = new BudgetRolloverPartition();
+                        partition.setYear(target.getYear());
+                        partition.setMonth(target.getMonthValue());
+                        partition.setPartitionNo(i);
+                        partition.setPartitionCount(partitions);
+                        return partition;
+                    })
+                    .toList());
+        }
+        return existing.stream()
+                .filter(p -> p.getStatus() != BudgetRolloverPartition.Status.COMPLETED)
+                .toList();
+    }
+
+    private MaintenanceRun run(YearMonth target, List<BudgetRolloverPartition> pending) {
+        MaintenanceRun run = new MaintenanceRun();
+        run.setJobName(JOB_NAME);
+        run = runRepository.save(run);
+
+        AtomicInteger chunks = new AtomicInteger();
+        long copiedBefore = pending.stream().mapToLong(BudgetRolloverPartition::getBudgetsCopied).sum();
+        long start = System.nanoTime();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, pending.size()), r -> {
+            Thread t = new Thread(r, "budget-rollover-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        List<BudgetRolloverPartition> finished = new ArrayList<>();
+        try {
+            List<Future<BudgetRolloverPartition>> futures = pending.stream()
+                    .map(partition -> executor.submit(() -> processPartition(partition, target, chunks)))
+                    .toList();
+            for (Future<BudgetRolloverPartition> future : futures) {
+                finished.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Budget rollover worker crashed: {}", e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long copied = finished.stream().mapToLong(BudgetRolloverPartition::getBudgetsCopied).sum() - copiedBefore;
+        List<String> failures = finished.stream()
+                .filter(p -> p.getStatus() != BudgetRolloverPartition.Status.COMPLETED)
+                .map(p -> "partition " + p.getPartitionNo() + ": " + p.getErrorMessage())
+                .toList();
+        boolean success = finished.size() == pending.size() && failures.isEmpty();
+
+        long elapsed = System.nanoTime() - start;
+        run.setRowsAffected(Math.max(copied, 0));
+        run.setChunks(chunks.get());
+        run.setStatus(success ? MaintenanceRun.Status.SUCCESS : MaintenanceRun.Status.FAILED);
+        if (!success) {
+            run.setErrorMessage(failures.isEmpty() ? "Interrupted; resumes on the next run" : String.join("; ", failures));
+        }
+        run.setDurationMs(TimeUnit.NANOSECONDS.toMillis(elapsed));
+        run.setFinishedAt(LocalDateTime.now());
+        Timer.builder("smartspend.maintenance.job.duration")
+                .tag("job", JOB_NAME)
+                .tag("status", run.getStatus().name())
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("smartspend.maintenance.job.rows", "job", JOB_NAME).increment(run.getRowsAffected());
+        log.info("Budget rollover into {} copied {} budgets in {} chunks ({})",
+                target, run.getRowsAffected(), run.getChunks(), run.getStatus());
+        return runRepository.save(run);
+    }
+
+    private BudgetRolloverPartition processPartition(BudgetRolloverPartition partition, YearMonth target,
+                                                     AtomicInteger chunks) {
+        YearMonth source = target.minusMonths(1);
+        partition.setStatus(BudgetRolloverPartition.Status.RUNNING);
+        partition.setErrorMessage(null);
+        partition = partitionRepository.save(partition);
+
+        try {
+            List<Long> userIds;
+            while (!(userIds = userRepository.findPartitionIds(partition.getLastUserId(),
+                    partition.getPartitionCount(), partition.getPartitionNo(), batchSize)).isEmpty()) {
+                BudgetRolloverPartition current = partition;
+                List<Long> chunk = userIds;
+                partition = transactionTemplate.execute(status -> processChunk(current, chunk, source, target));
+                chunks.incrementAndGet();
+                if (Thread.currentThread().isInterrupted()) {
+                    // Left RUNNING; the next run continues from the saved cursor
+                    return partition;
+                }
+            }
+            partition.setStatus(BudgetRolloverPartition.Status.COMPLETED);
+        } catch (Exception e) {
+            log.error("Budget rollover partition {} failed after user {}: {}",
+                    partition.getPartitionNo(), partition.getLastUserId(), e.getMessage(), e);
+            partition.setStatus(BudgetRolloverPartition.Status.FAILED);
+            partition.setErrorMessage(e.getMessage());
+        }
+        return partitionRepository.save(partition);
+    }
+
+    // One transaction: copy, summarize, invalidate cached pages and advance the cursor
+    private BudgetRolloverPartition processChunk(BudgetRolloverPartition partition, List<Long> userIds,
+                                                 YearMonth source, YearMonth target) {
+        List<Long> owners = budgetRepository.copyForward(userIds,
+                source.getYear(), source.getMonthValue(), target.getYear(), target.getMonthValue());
+        Set<Long> changed = new HashSet<>(owners);
+        // Inserted natively, so cached budget lookups would still say the month is empty
+        changed.forEach(userId -> eventPublisher.publishEvent(new BudgetChangedEvent(userId)));
+        changed.addAll(summaryRepository.upsertForUsers(userIds, source.getYear(), source.getMonthValue()));
+        dataVersionService.bumpAll(changed);
+
+        partition.setLastUserId(userIds.get(userIds.size() - 1));
+        partition.setUsersProcessed(partition.getUsersProcessed() + userIds.size());
+        partition.setBudgetsCopied(partition.getBudgetsCopied() + owners.size());
+        return partitionRepository.save(partition);
+    }
+}
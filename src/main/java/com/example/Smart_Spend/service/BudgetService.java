@@ -1,14 +1,20 @@
 package com.example.Smart_Spend.service;
 
 import com.example.Smart_Spend.entity.Budget;
+import com.example.Smart_Spend.entity.BudgetSummary;
+import com.example.Smart_Spend.entity.User;
 import com.example.Smart_Spend.repository.BudgetRepository;
+import com.example.Smart_Spend.repository.BudgetSummaryRepository;
 import com.example.Smart_Spend.repository.ExpenseRepository;
+import com.example.Smart_Spend.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +26,10 @@ public class BudgetService {
 
     private final BudgetRepository budgetRepository;
     private final ExpenseRepository expenseRepository;
+    private final BudgetSummaryRepository summaryRepository;
+    private final UserRepository userRepository;
+    private final DataVersionService dataVersionService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<Budget> getBudgetsByUser(Long userId) {
@@ -36,14 +46,21 @@ public class BudgetService {
         if (existing.isPresent()) {
             Budget existingBudget = existing.get();
             existingBudget.setAmount(budget.getAmount());
-            return budgetRepository.save(existingBudget);
+            budget = existingBudget;
         }
-        return budgetRepository.save(budget);
+        Budget saved = budgetRepository.save(budget);
+        dataVersionService.bump(saved.getUser().getId());
+        eventPublisher.publishEvent(new BudgetChangedEvent(saved.getUser().getId(), saved.getId()));
+        return saved;
     }
 
     public void deleteBudget(Long id) {
         log.debug("Deleting budget: {}", id);
-        budgetRepository.deleteById(id);
+        budgetRepository.findById(id).ifPresent(budget -> {
+            budgetRepository.delete(budget);
+            dataVersionService.bump(budget.getUser().getId());
+            eventPublisher.publishEvent(new BudgetChangedEvent(budget.getUser().getId(), budget.getId()));
+        });
     }
 
     @Transactional(readOnly = true)
@@ -51,6 +68,24 @@ public class BudgetService {
         return budgetRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
+    public boolean isRolloverEnabled(Long userId) {
+        return userRepository.findById(userId).map(User::isBudgetRollover).orElse(false);
+    }
+
+    public void setRolloverEnabled(Long userId, boolean enabled) {
+        log.debug("Budget rollover for user {}: {}", userId, enabled);
+        userRepository.updateBudgetRollover(userId, enabled);
+        dataVersionService.bump(userId);
+        eventPublisher.publishEvent(new UserAccountChangedEvent(userId));
+    }
+
+    // Written by BudgetRolloverService after the month is over
+    @Transactional(readOnly = true)
+    public Optional<BudgetSummary> getMonthSummary(Long userId, YearMonth month) {
+        return summaryRepository.findByUserIdAndYearAndMonth(userId, month.getYear(), month.getMonthValue());
+    }
+
     @Transactional(readOnly = true)
     public void checkBudgetAlert(Long userId, String category, int month, int year) {
         try {
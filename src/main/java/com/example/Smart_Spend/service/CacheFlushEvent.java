@@ -0,0 +1,8 @@
+package com.example.Smart_Spend.service;
+
+/**
+ * Asks every local cache to drop everything, published when invalidations from other
+ * nodes may have been missed (e.g. the notification listener reconnected).
+ */
+public record CacheFlushEvent(String reason) {
+}
@@ -0,0 +1,192 @@
+package com.example.Smart_Spend.service;
+
+import com.example.Smart_Spend.entity.JobLease;
+import com.example.Smart_Spend.entity.JobRun;
+import com.example.Smart_Spend.repository.JobLeaseRepository;
+import com.example.Smart_Spend.repository.JobRunRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a scheduled job on at most one node of the cluster at a time. Every node keeps its
+ * own @Scheduled trigger; whichever takes the job's lease in job_leases runs it, the others
+ * skip that tick. The lease is renewed in the background while the job runs, so it only
+ * lapses when the owner dies, after which the next trigger anywhere takes over. Each
+ * execution is recorded in job_runs.
+ *
+ * If a renewal finds the lease taken over (only possible after a stall longer than the
+ * lease), the job is stopped: its thread is interrupted, and chunked jobs call
+ * {@link #checkLease()} between chunks. Jobs must tolerate being re-run from the start
+ * after a failover; all of ours are chunked and idempotent.
+ */
+@Service
+@Slf4j
+public class ClusterJobService implements DisposableBean {
+
+    private final JobLeaseRepository leaseRepository;
+    private final JobRunRepository runRepository;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId;
+    private final long leaseSeconds;
+    private final ScheduledExecutorService renewer;
+
+    // The running execution; the renewer stops it at most once, and never after it finished
+    private static final class Execution {
+        private final String jobName;
+        private final Thread owner;
+        private boolean finished;
+        private volatile boolean lost;
+
+        Execution(String jobName, Thread owner) {
+            this.jobName = jobName;
+            this.owner = owner;
+        }
+
+        synchronized void stop() {
+            if (!finished && !lost) {
+                lost = true;
+                owner.interrupt();
+            }
+        }
+
+        synchronized boolean finish() {
+            finished = true;
+            return lost;
+        }
+    }
+
+    public ClusterJobService(JobLeaseRepository leaseRepository,
+                             JobRunRepository runRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.cluster.node-id:}") String nodeId,
+                             @Value("${app.cluster.lease-seconds:60}") long leaseSeconds) {
+        this.leaseRepository = leaseRepository;
+        this.runRepository = runRepository;
+        this.meterRegistry = meterRegistry;
+        // pid@host by default: unique per process, readable in the run history
+        this.nodeId = nodeId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : nodeId;
+        this.leaseSeconds = leaseSeconds;
+        this.renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "job-lease-renewer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Runs {@code task} if this node can take the lease for {@code jobName}. Returns false
+     * without running it when another execution holds the lease; exceptions from the task
+     * are recorded and rethrown.
+     */
+    public boolean runExclusive(String jobName, Runnable task) {
+        if (leaseRepository.tryAcquire(jobName, nodeId, leaseSeconds) == 0) {
+            log.debug("Job {} is running elsewhere, skipping", jobName);
+            meterRegistry.counter("smartspend.cluster.job.skipped", "job", jobName).increment();
+            return false;
+        }
+
+        JobRun run = new JobRun();
+        run.setJobName(jobName);
+        run.setNode(nodeId);
+        run = runRepository.save(run);
+
+        Execution execution = new Execution(jobName, Thread.currentThread());
+        long renewEvery = Math.max(1, leaseSeconds / 3);
+        ScheduledFuture<?> renewal = renewer.scheduleAtFixedRate(() -> renew(execution),
+                renewEvery, renewEvery, TimeUnit.SECONDS);
+        long start = System.nanoTime();
+        try {
+            task.run();
+            run.setStatus(JobRun.Status.SUCCESS);
+            return true;
+        } catch (RuntimeException e) {
+            run.setStatus(JobRun.Status.FAILED);
+            run.setErrorMessage(e.getMessage());
+            throw e;
+        } finally {
+            renewal.cancel(false);
+            if (execution.finish()) {
+                // Do not hand the interrupt on to whatever the scheduler thread runs next
+                Thread.interrupted();
+                run.setStatus(JobRun.Status.FAILED);
+                run.setErrorMessage("Lost the lease; stopped");
+            }
+            long elapsed = System.nanoTime() - start;
+            run.setDurationMs(TimeUnit.NANOSECONDS.toMillis(elapsed));
+            run.setFinishedAt(LocalDateTime.now());
+            runRepository.save(run);
+            try {
+                leaseRepository.release(jobName, nodeId);
+            } catch (RuntimeException e) {
+                // The lease lapses on its own within leaseSeconds
+                log.warn("Could not release lease for job {}: {}", jobName, e.getMessage());
+            }
+            Timer.builder("smartspend.cluster.job.duration")
+                    .tag("job", jobName)
+                    .tag("status", run.getStatus().name())
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Called by chunked jobs between chunks, on the job's thread or on workers it interrupts
+     * in turn. Throws {@link CancellationException} once the job has to stop: its lease was
+     * lost, or the node is shutting down.
+     */
+    public static void checkLease() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Job stopped: lease lost or shutting down");
+        }
+    }
+
+    private void renew(Execution execution) {
+        if (execution.lost) {
+            return;
+        }
+        String jobName = execution.jobName;
+        try {
+            if (leaseRepository.renew(jobName, nodeId, leaseSeconds) == 0) {
+                // Only possible after a stall longer than the lease; another node may already run the job
+                log.error("Lost lease for job {} while it was still running on {}, stopping it", jobName, nodeId);
+                meterRegistry.counter("smartspend.cluster.job.lease_lost", "job", jobName).increment();
+                execution.stop();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Lease renewal for job {} failed: {}", jobName, e.getMessage());
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Transactional(readOnly = true)
+    public List<JobRun> getRecentRuns() {
+        return runRepository.findTop30ByOrderByStartedAtDesc();
+    }
+
+    @Transactional(readOnly = true)
+    public List<JobLease> getLeases() {
+        return leaseRepository.findAllByOrderByJobName();
+    }
+
+    @Override
+    public void destroy() {
+        renewer.shutdownNow();
+    }
+}
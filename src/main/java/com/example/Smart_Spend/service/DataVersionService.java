@@ -0,0 +1,47 @@
+package com.example.Smart_Spend.service;
+
+import com.example.Smart_Spend.entity.UserDataVersion;
+import com.example.Smart_Spend.repository.UserDataVersionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Per-user data version used to validate cached pages. Writers call {@link #bump}
+ * inside their own transaction, so the version only moves if the write commits.
+ */
+@Service
+@RequiredArgsConstructor
+public class DataVersionService {
+
+    private static final LocalDateTime NEVER = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final UserDataVersionRepository versionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public void bump(Long userId) {
+        long version = versionRepository.bump(userId, LocalDateTime.now());
+        eventPublisher.publishEvent(new UserDataChangedEvent(userId, version));
+    }
+
+    @Transactional
+    public void bumpAll(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        for (Object[] row : versionRepository.bumpAll(userIds, LocalDateTime.now())) {
+            eventPublisher.publishEvent(new UserDataChangedEvent(((Number) row[0]).longValue(), ((Number) row[1]).longValue()));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public UserDataVersion current(Long userId) {
+        return versionRepository.findById(userId)
+                .orElseGet(() -> new UserDataVersion(userId, 0, NEVER));
+    }
+}
@@ -23,13 +23,13 @@ public class EmailService {
     private String fromEmail;
 
     @Async
-    public void sendVerificationEmail(User user) {
+    public void sendVerificationEmail(User user, String token) {
         try {
             SimpleMailMessage message = new SimpleMailMessage();
             message.setFrom(fromEmail);
             message.setTo(user.getEmail());
             message.setSubject("SmartSpend - Email Verification");
-            message.setText("Click the link to verify your email: " + baseUrl + "/verify-email?token=" + user.getVerificationToken());
+            message.setText("Click the link to verify your email: " + baseUrl + "/verify-email?token=" + token);
             mailSender.send(message);
             log.info("Verification email sent to: {}", user.getEmail());
         } catch (Exception e) {
@@ -38,13 +38,13 @@ public class EmailService {
     }
 
     @Async
-    public void sendPasswordResetEmail(User user) {
+    public void sendPasswordResetEmail(User user, String token) {
         try {
             SimpleMailMessage message = new SimpleMailMessage();
             message.setFrom(fromEmail);
             message.setTo(user.getEmail());
             message.setSubject("SmartSpend - Password Reset");
-            message.setText("Click the link to reset your password: " + baseUrl + "/reset-password?token=" + user.getResetToken());
+            message.setText("Click the link to reset your password: " + baseUrl + "/reset-password?token=" + token);
             mailSender.send(message);
             log.info("Password reset email sent to: {}", user.getEmail());
         } catch (Exception e) {
@@ -0,0 +1,431 @@
+package com.example.Smart_Spend.service;
+
+import com.example.Smart_Spend.entity.ArchivedMonth;
+import com.example.Smart_Spend.entity.Expense;
+import com.example.Smart_Spend.entity.ExpenseMonthRollup;
+import com.example.Smart_Spend.repository.ArchivedMonthRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Moves months of expenses older than {@code horizon-months} out of the database into
+ * {@link ExpenseSegmentFile}s, one immutable file per month under {@code app.archive.dir}, and
+ * keeps per-user, per-category totals of them in expense_month_rollups for the aggregates.
+ * <p>
+ * A month is archived in one transaction: its rows are locked, written to a temporary file that
+ * is forced to disk and renamed into place, then deleted together with writing the rollups and
+ * the archived_months entry. Rows that arrive for an archived month later, and users deleted
+ * since, are handled by archiving the month again into a new version of the file. Superseded
+ * and orphaned files are removed by a later run, so readers holding an old name can finish.
+ * <p>
+ * Reads go to the file only when a user asks for an archived month (or for an export), and then
+ * inflate just that user's block.
+ */
+@Service
+@Slf4j
+public class ExpenseArchiveService {
+
+    private static final String ROW_COLUMNS =
+            "id, user_id, title, amount, category, type, transaction_date, description, recurring_id, created_at, updated_at";
+    private static final int DELETE_BATCH_SIZE = 1000;
+    private static final Duration ORPHAN_GRACE = Duration.ofHours(1);
+    private static final Comparator<ExpenseSegmentFile.Row> ROW_ORDER =
+            Comparator.comparing(ExpenseSegmentFile.Row::transactionDate).thenComparingLong(ExpenseSegmentFile.Row::id);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ArchivedMonthRepository archivedMonthRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterJobService clusterJobs;
+    private final DataVersionService dataVersionService;
+    private final Counter archivedRows;
+    private final boolean enabled;
+    private final Path dir;
+    private final int horizonMonths;
+    private final int maxMonthsPerRun;
+    private final int userBatchSize;
+    // Files never change, so their indexes can be kept until the file is superseded
+    private final Map<String, ExpenseSegmentFile.Index> indexes = new ConcurrentHashMap<>();
+
+    public ExpenseArchiveService(JdbcTemplate jdbcTemplate,
+                                 ArchivedMonthRepository archivedMonthRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 ClusterJobService clusterJobs,
+                                 DataVersionService dataVersionService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.archive.enabled:false}") boolean enabled,
+                                 @Value("${app.archive.dir:./data/archive}") String dir,
+                                 @Value("${app.archive.horizon-months:24}") int horizonMonths,
+                                 @Value("${app.archive.max-months-per-run:6}") int maxMonthsPerRun,
+                                 @Value("${app.archive.user-batch-size:500}") int userBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.archivedMonthRepository = archivedMonthRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clusterJobs = clusterJobs;
+        this.dataVersionService = dataVersionService;
+        this.archivedRows = meterRegistry.counter("smartspend.archive.rows");
+        this.enabled = enabled;
+        this.dir = Paths.get(dir);
+        // Last month stays live at least until the budget rollover has summarized it
+        this.horizonMonths = Math.max(2, horizonMonths);
+        this.maxMonthsPerRun = maxMonthsPerRun;
+        this.userBatchSize = userBatchSize;
+    }
+
+    @Scheduled(cron = "${app.archive.cron:0 0 4 * * *}")
+    public void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            clusterJobs.runExclusive("expense-archive", () -> {
+                int months = archiveColdMonths(YearMonth.now());
+                if (months > 0) {
+                    log.info("Archived {} months of expenses", months);
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Expense archival failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Archives every month before the horizon that still has rows in the database, and rewrites
+     * archived months that contain users deleted since, up to {@code max-months-per-run}.
+     * Returns the number of months written.
+     */
+    public int archiveColdMonths(YearMonth current) {
+        createDirectory();
+        removeUnreferencedFiles();
+
+        TreeSet<YearMonth> due = new TreeSet<>();
+        jdbcTemplate.queryForList("SELECT DISTINCT to_char(transaction_date, 'YYYY-MM') FROM expenses " +
+                        "WHERE transaction_date < ?", String.class,
+                        Date.valueOf(current.minusMonths(horizonMonths).atDay(1)))
+                .forEach(month -> due.add(YearMonth.parse(month)));
+        for (ArchivedMonth archived : archivedMonthRepository.findAll()) {
+            try {
+                long[] userIds = index(archived).userIds();
+                if (existingUsers(Arrays.stream(userIds).boxed().toList()).size() < userIds.length) {
+                    due.add(archived.getPeriod());
+                }
+            } catch (UncheckedIOException e) {
+                log.error("Cannot check archived expenses of {}: {}", archived.getPeriod(), e.getMessage());
+            }
+        }
+
+        int written = 0;
+        for (YearMonth month : due) {
+            if (written >= maxMonthsPerRun) {
+                break;
+            }
+            ClusterJobService.checkLease();
+            try {
+                archiveMonth(month);
+                written++;
+            } catch (RuntimeException e) {
+                log.error("Could not archive expenses of {}: {}", month, e.getMessage(), e);
+            }
+        }
+        return written;
+    }
+
+    void archiveMonth(YearMonth month) {
+        Date from = Date.valueOf(month.atDay(1));
+        Date to = Date.valueOf(month.plusMonths(1).atDay(1));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('expense-archive'))");
+            ArchivedMonth archived = archivedMonthRepository.findByYearAndMonth(month.getYear(), month.getMonthValue())
+                    .orElseGet(ArchivedMonth::new);
+            ExpenseSegmentFile.Index previous = archived.getId() != null ? index(archived) : null;
+            Path previousPath = previous != null ? dir.resolve(archived.getFileName()) : null;
+
+            TreeSet<Long> candidates = new TreeSet<>(jdbcTemplate.queryForList(
+                    "SELECT DISTINCT user_id FROM expenses WHERE transaction_date >= ? AND transaction_date < ?",
+                    Long.class, from, to));
+            if (previous != null) {
+                Arrays.stream(previous.userIds()).forEach(candidates::add);
+            }
+            // Rows of deleted users are dropped here; live rows cannot belong to one
+            Set<Long> users = existingUsers(candidates);
+
+            int version = archived.getVersion() + 1;
+            String fileName = String.format("expenses-%s.v%d.seg", month, version);
+            Path target = dir.resolve(fileName);
+            Path temp = dir.resolve(fileName + ".tmp");
+            List<Long> liveIds = new ArrayList<>();
+            // Owners of moved rows, and deleted users whose rows are purged from the file
+            Set<Long> changed = new TreeSet<>(candidates);
+            changed.removeAll(users);
+            Map<List<Object>, ExpenseMonthRollup> rollups = new LinkedHashMap<>();
+            long rows = 0;
+
+            try {
+                try (ExpenseSegmentFile.Writer writer = ExpenseSegmentFile.create(temp)) {
+                    for (List<Long> batch : batches(new ArrayList<>(new TreeSet<>(users)), userBatchSize)) {
+                        Map<Long, List<ExpenseSegmentFile.Row>> live = lockLiveRows(batch, from, to);
+                        for (Long userId : batch) {
+                            List<ExpenseSegmentFile.Row> userRows = new ArrayList<>();
+                            if (previous != null) {
+                                userRows.addAll(ExpenseSegmentFile.read(previousPath, previous, userId));
+                            }
+                            for (ExpenseSegmentFile.Row row : live.getOrDefault(userId, List.of())) {
+                                liveIds.add(row.id());
+                                userRows.add(row);
+                                changed.add(userId);
+                            }
+                            userRows.sort(ROW_ORDER);
+                            writer.write(userId, userRows);
+                            for (ExpenseSegmentFile.Row row : userRows) {
+                                ExpenseMonthRollup rollup = rollups.computeIfAbsent(
+                                        List.of(userId, row.category(), row.type()), k -> new ExpenseMonthRollup(null,
+                                                userId, month.getYear(), month.getMonthValue(), row.category(), row.type(),
+                                                BigDecimal.ZERO, 0));
+                                rollup.setTotal(rollup.getTotal().add(row.amount()));
+                                rollup.setRowCount(rollup.getRowCount() + 1);
+                            }
+                            rows += userRows.size();
+                        }
+                    }
+                    writer.finish();
+                }
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int completion) {
+                        if (completion != STATUS_COMMITTED) {
+                            deleteQuietly(target);
+                        }
+                    }
+                });
+
+                for (List<Long> batch : batches(liveIds, DELETE_BATCH_SIZE)) {
+                    jdbcTemplate.update("DELETE FROM expenses WHERE transaction_date >= ? AND transaction_date < ? " +
+                            "AND id IN (" + placeholders(batch.size()) + ")", concat(from, to, batch));
+                }
+                dropEmptyPartition(month);
+
+                jdbcTemplate.update("DELETE FROM expense_month_rollups WHERE year = ? AND month = ?",
+                        month.getYear(), month.getMonthValue());
+                jdbcTemplate.batchUpdate("INSERT INTO expense_month_rollups (user_id, year, month, category, type, total, row_count) " +
+                                "VALUES (?, ?, ?, ?, ?, ?, ?)",
+                        rollups.values().stream().map(r -> new Object[]{r.getUserId(), r.getYear(), r.getMonth(),
+                                r.getCategory(), r.getType().name(), r.getTotal(), r.getRowCount()}).toList());
+
+                archived.setYear(month.getYear());
+                archived.setMonth(month.getMonthValue());
+                archived.setVersion(version);
+                archived.setFileName(fileName);
+                archived.setRowCount(rows);
+                archived.setUserCount(users.size());
+                archived.setFileBytes(Files.size(target));
+                archived.setArchivedAt(LocalDateTime.now());
+                archivedMonthRepository.save(archived);
+                // Cached pages of these users were rendered from rows that moved or are gone
+                for (List<Long> batch : batches(new ArrayList<>(changed), DELETE_BATCH_SIZE)) {
+                    dataVersionService.bumpAll(batch);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                deleteQuietly(temp);
+            }
+            archivedRows.increment(liveIds.size());
+            log.info("Archived {} expenses of {} into {} ({} rows, {} users)", liveIds.size(), month, fileName, rows, users.size());
+        });
+    }
+
+    private Map<Long, List<ExpenseSegmentFile.Row>> lockLiveRows(List<Long> userIds, Date from, Date to) {
+        Map<Long, List<ExpenseSegmentFile.Row>> rows = new HashMap<>();
+        jdbcTemplate.query("SELECT " + ROW_COLUMNS + " FROM expenses WHERE transaction_date >= ? AND transaction_date < ? " +
+                        "AND user_id IN (" + placeholders(userIds.size()) + ") FOR UPDATE",
+                (RowCallbackHandler) rs -> {
+                    Timestamp created = rs.getTimestamp("created_at");
+                    Timestamp updated = rs.getTimestamp("updated_at");
+                    ExpenseSegmentFile.Row row = new ExpenseSegmentFile.Row(rs.getLong("id"), rs.getLong("user_id"),
+                            rs.getString("title"), rs.getBigDecimal("amount"), rs.getString("category"),
+                            Expense.TransactionType.valueOf(rs.getString("type")), rs.getDate("transaction_date").toLocalDate(),
+                            rs.getString("description"), rs.getObject("recurring_id", Long.class),
+                            created != null ? created.toLocalDateTime() : null,
+                            updated != null ? updated.toLocalDateTime() : null);
+                    rows.computeIfAbsent(row.userId(), k -> new ArrayList<>()).add(row);
+                },
+                concat(from, to, userIds));
+        return rows;
+    }
+
+    // A month that had its own partition leaves an empty table behind; inserts for it go to the default partition
+    private void dropEmptyPartition(YearMonth month) {
+        String partition = ExpensePartitionService.partitionName(month);
+        if (!jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition)) {
+            return;
+        }
+        jdbcTemplate.execute("LOCK TABLE " + partition + " IN ACCESS EXCLUSIVE MODE");
+        if (!jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + partition + ")", Boolean.class)) {
+            jdbcTemplate.execute("DROP TABLE " + partition);
+        }
+    }
+
+    /** Archived months holding rows of this user, newest first. Unreadable files are left out. */
+    public List<YearMonth> getArchivedMonths(Long userId) {
+        List<YearMonth> months = new ArrayList<>();
+        for (ArchivedMonth archived : archivedMonthRepository.findAllByOrderByYearDescMonthDesc()) {
+            try {
+                if (index(archived).contains(userId)) {
+                    months.add(archived.getPeriod());
+                }
+            } catch (UncheckedIOException e) {
+                log.error("Cannot read archived expenses of {}: {}", archived.getPeriod(), e.getMessage());
+            }
+        }
+        return months;
+    }
+
+    /** The user's archived rows of one month, read from its segment; none if the month is not archived. */
+    public List<ExpenseSegmentFile.Row> readMonth(Long userId, YearMonth month) {
+        return archivedMonthRepository.findByYearAndMonth(month.getYear(), month.getMonthValue())
+                .map(archived -> {
+                    try {
+                        return ExpenseSegmentFile.read(dir.resolve(archived.getFileName()), index(archived), userId);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Archived expenses of " + month + " are unavailable", e);
+                    }
+                })
+                .orElse(List.of());
+    }
+
+    /**
+     * Streams every archived row, month by month, handing over the rows of up to
+     * {@code app.archive.user-batch-size} users at a time.
+     */
+    public void forEachArchived(Consumer<List<ExpenseSegmentFile.Row>> consumer) {
+        for (ArchivedMonth archived : archivedMonthRepository.findAllByOrderByYearDescMonthDesc()) {
+            ExpenseSegmentFile.Index index = index(archived);
+            Path path = dir.resolve(archived.getFileName());
+            try {
+                for (List<Long> batch : batches(Arrays.stream(index.userIds()).boxed().toList(), userBatchSize)) {
+                    List<ExpenseSegmentFile.Row> rows = new ArrayList<>();
+                    for (long userId : batch) {
+                        rows.addAll(ExpenseSegmentFile.read(path, index, userId));
+                    }
+                    consumer.accept(rows);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Archived expenses of " + archived.getPeriod() + " are unavailable", e);
+            }
+        }
+    }
+
+    private ExpenseSegmentFile.Index index(ArchivedMonth archived) {
+        return indexes.computeIfAbsent(archived.getFileName(), name -> {
+            try {
+                return ExpenseSegmentFile.readIndex(dir.resolve(name));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Archived expenses of " + archived.getPeriod() + " are unavailable", e);
+            }
+        });
+    }
+
+    private Set<Long> existingUsers(Collection<Long> userIds) {
+        Set<Long> existing = new HashSet<>();
+        for (List<Long> batch : batches(new ArrayList<>(userIds), DELETE_BATCH_SIZE)) {
+            existing.addAll(jdbcTemplate.queryForList("SELECT id FROM users WHERE id IN (" + placeholders(batch.size()) + ")",
+                    Long.class, batch.toArray()));
+        }
+        return existing;
+    }
+
+    // Superseded versions and leftovers of failed runs; the grace period lets in-flight readers finish
+    private void removeUnreferencedFiles() {
+        Set<String> referenced = new HashSet<>();
+        archivedMonthRepository.findAll().forEach(archived -> referenced.add(archived.getFileName()));
+        indexes.keySet().retainAll(referenced);
+        Instant cutoff = Instant.now().minus(ORPHAN_GRACE);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "expenses-*")) {
+            for (Path file : files) {
+                if (!referenced.contains(file.getFileName().toString())
+                        && Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    log.info("Removing unreferenced archive file {}", file.getFileName());
+                    deleteQuietly(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not clean up archive directory {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private void createDirectory() {
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create archive directory " + dir, e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static <T> List<List<T>> batches(List<T> values, int size) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int i = 0; i < values.size(); i += size) {
+            batches.add(values.subList(i, Math.min(values.size(), i + size)));
+        }
+        return batches;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static Object[] concat(Object first, Object second, List<Long> rest) {
+        List<Object> args = new ArrayList<>(rest.size() + 2);
+        args.add(first);
+        args.add(second);
+        args.addAll(rest);
+        return args.toArray();
+    }
+}
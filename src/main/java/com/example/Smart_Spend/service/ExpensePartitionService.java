@@ -0,0 +1,356 @@
+package com.example.Smart_Spend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps expenses range-partitioned by month on transaction_date, so a month-level query only
+ * scans that month's partition and its index instead of the whole history.
+ * <p>
+ * ddl-auto creates expenses as a plain table. The first start converts it in one transaction
+ * without copying the history: the table is renamed to expenses_legacy and attached to a new
+ * partitioned expenses as the partition for everything up to its latest month (at least the
+ * current one). Later months get monthly partitions. A partitioned table can have no identity
+ * column and its primary key must contain the partition key, so ids come from the
+ * expenses_id_seq default and the key becomes (id, transaction_date).
+ * <p>
+ * The conversion holds ACCESS EXCLUSIVE on expenses, so everything that scans or indexes the
+ * history is done beforehand alongside normal traffic: the new key is built CONCURRENTLY and a
+ * CHECK matching the legacy bound is validated, which lets ATTACH adopt both instead of
+ * building an index and scanning the table under the lock.
+ * <p>
+ * Monthly partitions are created {@code months-ahead} in advance, at startup and by a daily
+ * job. Rows dated where no partition exists yet land in expenses_default and are moved out
+ * when their month's partition is created.
+ */
+@Service
+@Slf4j
+public class ExpensePartitionService implements SmartLifecycle {
+
+    static final String LEGACY_PARTITION = "expenses_legacy";
+    static final String DEFAULT_PARTITION = "expenses_default";
+    private static final String LEGACY_KEY = "expenses_legacy_pkey";
+    private static final String LEGACY_RANGE_PREFIX = "expenses_legacy_before_";
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([0-9-]+)'\\)");
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'expenses_p'yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterJobService clusterJobs;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private volatile boolean running;
+
+    public ExpensePartitionService(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   ClusterJobService clusterJobs,
+                                   @Value("${app.expense-partitions.enabled:true}") boolean enabled,
+                                   @Value("${app.expense-partitions.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clusterJobs = clusterJobs;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @Scheduled(cron = "${app.expense-partitions.cron:0 30 2 * * *}")
+    public void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            clusterJobs.runExclusive("expense-partitions", () -> ensurePartitions(YearMonth.now()));
+        } catch (Exception e) {
+            log.warn("Expense partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    public boolean isPartitioned() {
+        return "p".equals(tableKind());
+    }
+
+    /**
+     * Creates the partitions for {@code current} and the next {@code months-ahead} months, plus
+     * any earlier month that has rows waiting in expenses_default. Existing partitions are left
+     * alone, so this is safe to repeat and to run on several nodes.
+     */
+    public void ensurePartitions(YearMonth current) {
+        if (!isPartitioned()) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION + " PARTITION OF expenses DEFAULT");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_expenses_user_date ON expenses (user_id, transaction_date)");
+
+        TreeSet<YearMonth> months = new TreeSet<>();
+        for (int i = 0; i <= monthsAhead; i++) {
+            months.add(current.plusMonths(i));
+        }
+        // Gaps left while no node was running; rows beyond the window stay in the default partition
+        jdbcTemplate.queryForList("SELECT DISTINCT to_char(transaction_date, 'YYYY-MM') FROM " + DEFAULT_PARTITION +
+                        " WHERE transaction_date < ?", String.class,
+                        Date.valueOf(current.plusMonths(monthsAhead + 1L).atDay(1)))
+                .forEach(month -> months.add(YearMonth.parse(month)));
+        LocalDate legacyBound = legacyBound();
+        if (legacyBound != null) {
+            months.removeIf(month -> month.atDay(1).isBefore(legacyBound));
+        }
+
+        for (YearMonth month : months) {
+            try {
+                createPartition(month);
+            } catch (RuntimeException e) {
+                log.error("Could not create expenses partition for {}: {}", month, e.getMessage());
+            }
+        }
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_NAME.format(month);
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        transactionTemplate.executeWithoutResult(status -> {
+            lock();
+            if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name)) {
+                return;
+            }
+            // Filled while still detached: attaching next to a default partition that holds rows
+            // for the new range would fail
+            jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE expenses INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION +
+                            " WHERE transaction_date >= ? AND transaction_date < ? RETURNING *) " +
+                            "INSERT INTO " + name + " SELECT * FROM moved",
+                    Date.valueOf(from), Date.valueOf(to));
+            jdbcTemplate.execute("ALTER TABLE expenses ATTACH PARTITION " + name +
+                    " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+            log.info("Created expenses partition {} ({} rows moved from {})", name, moved, DEFAULT_PARTITION);
+        });
+    }
+
+    /**
+     * Turns the plain expenses table into the partitioned one; see the class comment. Indexes and
+     * foreign keys are recreated on the new parent under their original names, and the renamed
+     * originals are adopted as the legacy partition's copies, so the history is not re-indexed.
+     * Whatever could not be prepared ATTACH does itself, under the lock: it builds the key, or
+     * rows from the current month on are moved to expenses_default and the rest are checked.
+     */
+    void convert(YearMonth current) {
+        LocalDate prepared = prepareLegacy(current);
+        transactionTemplate.executeWithoutResult(status -> {
+            lock();
+            if (!"r".equals(tableKind())) {
+                return; // converted by another node meanwhile
+            }
+            jdbcTemplate.execute("LOCK TABLE expenses IN ACCESS EXCLUSIVE MODE");
+            // Another node may have prepared for a different bound meanwhile
+            boolean inRange = prepared != null && isValidated(rangeConstraint(prepared));
+            boolean keyBuilt = isValidIndex(LEGACY_KEY);
+            LocalDate bound = inRange ? prepared : current.atDay(1);
+            log.info("Partitioning expenses by month; rows before {} stay in {}", bound, LEGACY_PARTITION);
+
+            List<Map<String, Object>> indexes = jdbcTemplate.queryForList(
+                    "SELECT quote_ident(c.relname) AS name, quote_ident(left(c.relname, 55) || '_legacy') AS legacy_name, " +
+                    "pg_get_indexdef(i.indexrelid) AS def FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid " +
+                    "WHERE i.indrelid = 'expenses'::regclass AND c.relname <> '" + LEGACY_KEY + "' " +
+                    "AND NOT EXISTS (SELECT 1 FROM pg_constraint k WHERE k.conindid = i.indexrelid)");
+            List<Map<String, Object>> foreignKeys = jdbcTemplate.queryForList(
+                    "SELECT quote_ident(conname) AS name, pg_get_constraintdef(oid) AS def FROM pg_constraint " +
+                    "WHERE conrelid = 'expenses'::regclass AND contype = 'f'");
+            List<String> primaryKey = jdbcTemplate.queryForList(
+                    "SELECT quote_ident(conname) FROM pg_constraint WHERE conrelid = 'expenses'::regclass AND contype = 'p'",
+                    String.class);
+
+            // Continue after both the highest id and the old generator, whichever is further
+            long nextId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM expenses", Long.class);
+            String oldSequence = jdbcTemplate.queryForObject("SELECT pg_get_serial_sequence('expenses', 'id')", String.class);
+            if (oldSequence != null) {
+                nextId = Math.max(nextId, jdbcTemplate.queryForObject(
+                        "SELECT last_value + 1 FROM " + oldSequence, Long.class));
+            }
+            jdbcTemplate.execute("ALTER TABLE expenses ALTER COLUMN id DROP IDENTITY IF EXISTS");
+            jdbcTemplate.execute("ALTER TABLE expenses ALTER COLUMN id DROP DEFAULT");
+            jdbcTemplate.execute("DROP SEQUENCE IF EXISTS expenses_id_seq");
+            for (String constraint : primaryKey) {
+                jdbcTemplate.execute("ALTER TABLE expenses DROP CONSTRAINT " + constraint);
+            }
+            if (keyBuilt) {
+                jdbcTemplate.execute("ALTER TABLE expenses ADD CONSTRAINT " + LEGACY_KEY + " PRIMARY KEY USING INDEX " + LEGACY_KEY);
+            } else {
+                jdbcTemplate.execute("DROP INDEX IF EXISTS " + LEGACY_KEY);
+            }
+
+            jdbcTemplate.execute("ALTER TABLE expenses RENAME TO " + LEGACY_PARTITION);
+            for (Map<String, Object> index : indexes) {
+                jdbcTemplate.execute("ALTER INDEX " + index.get("name") + " RENAME TO " + index.get("legacy_name"));
+            }
+
+            jdbcTemplate.execute("CREATE TABLE expenses (LIKE " + LEGACY_PARTITION +
+                    " INCLUDING DEFAULTS INCLUDING CONSTRAINTS) PARTITION BY RANGE (transaction_date)");
+            dropRangeConstraints("expenses");
+            jdbcTemplate.execute("CREATE SEQUENCE expenses_id_seq OWNED BY expenses.id");
+            jdbcTemplate.queryForObject("SELECT setval('expenses_id_seq', ?, false)", Long.class, nextId);
+            jdbcTemplate.execute("ALTER TABLE expenses ALTER COLUMN id SET DEFAULT nextval('expenses_id_seq')");
+            jdbcTemplate.execute("ALTER TABLE expenses ADD PRIMARY KEY (id, transaction_date)");
+            for (Map<String, Object> index : indexes) {
+                jdbcTemplate.execute((String) index.get("def"));
+            }
+            for (Map<String, Object> foreignKey : foreignKeys) {
+                jdbcTemplate.execute("ALTER TABLE expenses ADD CONSTRAINT " + foreignKey.get("name") + " " + foreignKey.get("def"));
+            }
+
+            jdbcTemplate.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF expenses DEFAULT");
+            // The validated CHECK guarantees there is nothing to move
+            int moved = inRange ? 0 : jdbcTemplate.update("WITH moved AS (DELETE FROM " + LEGACY_PARTITION +
+                            " WHERE transaction_date >= ? RETURNING *) INSERT INTO " + DEFAULT_PARTITION + " SELECT * FROM moved",
+                    Date.valueOf(bound));
+            jdbcTemplate.execute("ALTER TABLE expenses ATTACH PARTITION " + LEGACY_PARTITION +
+                    " FOR VALUES FROM (MINVALUE) TO ('" + bound + "')");
+            // Implied by the partition bound from now on
+            dropRangeConstraints(LEGACY_PARTITION);
+            log.info("Partitioned expenses; {} rows from {} on are moved into monthly partitions next", moved, bound);
+        });
+    }
+
+    /**
+     * Builds, alongside normal traffic, what ATTACH would otherwise do under the lock: the
+     * (id, transaction_date) key and a validated CHECK implying the legacy bound. The bound is
+     * the month after the latest row, so no row has to move; only writes dated later still are
+     * refused until the conversion. Returns the bound, or null if rows lie beyond the partition
+     * window or a step failed.
+     */
+    private LocalDate prepareLegacy(YearMonth current) {
+        LocalDate latest = jdbcTemplate.queryForObject("SELECT MAX(transaction_date) FROM expenses", LocalDate.class);
+        YearMonth last = latest != null && YearMonth.from(latest).isAfter(current) ? YearMonth.from(latest) : current;
+        if (last.isAfter(current.plusMonths(monthsAhead))) {
+            log.warn("Expenses dated as late as {}; converting without preparing {}", latest, LEGACY_PARTITION);
+            return null;
+        }
+        LocalDate bound = last.plusMonths(1).atDay(1);
+        String range = rangeConstraint(bound);
+
+        // CONCURRENTLY cannot run in a transaction, so nodes are serialized with a session lock
+        // on one connection instead
+        return jdbcTemplate.execute((ConnectionCallback<LocalDate>) connection -> {
+            JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            session.execute("SELECT pg_advisory_lock(hashtext('expense-partitions'))");
+            try {
+                if (!"r".equals(tableKind())) {
+                    return null;
+                }
+                if (!isValidIndex(LEGACY_KEY)) {
+                    // Left behind invalid by an interrupted build
+                    session.execute("DROP INDEX CONCURRENTLY IF EXISTS " + LEGACY_KEY);
+                    session.execute("CREATE UNIQUE INDEX CONCURRENTLY " + LEGACY_KEY + " ON expenses (id, transaction_date)");
+                }
+                if (!isValidated(range)) {
+                    session.execute("ALTER TABLE expenses DROP CONSTRAINT IF EXISTS " + range);
+                    session.execute("ALTER TABLE expenses ADD CONSTRAINT " + range +
+                            " CHECK (transaction_date < '" + bound + "') NOT VALID");
+                    session.execute("ALTER TABLE expenses VALIDATE CONSTRAINT " + range);
+                }
+                return bound;
+            } catch (DataAccessException e) {
+                log.warn("Could not prepare {} for partitioning: {}", LEGACY_PARTITION, e.getMessage());
+                session.execute("ALTER TABLE expenses DROP CONSTRAINT IF EXISTS " + range);
+                return null;
+            } finally {
+                session.execute("SELECT pg_advisory_unlock(hashtext('expense-partitions'))");
+            }
+        });
+    }
+
+    private void dropRangeConstraints(String table) {
+        for (String constraint : jdbcTemplate.queryForList("SELECT quote_ident(conname) FROM pg_constraint " +
+                "WHERE conrelid = ?::regclass AND conname LIKE ?", String.class, table, LEGACY_RANGE_PREFIX + "%")) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP CONSTRAINT " + constraint);
+        }
+    }
+
+    private static String rangeConstraint(LocalDate bound) {
+        return LEGACY_RANGE_PREFIX + bound.getYear() + "_" + String.format("%02d", bound.getMonthValue());
+    }
+
+    private boolean isValidated(String constraint) {
+        return jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM pg_constraint " +
+                "WHERE conrelid = to_regclass('expenses') AND conname = ? AND convalidated)", Boolean.class, constraint);
+    }
+
+    private boolean isValidIndex(String index) {
+        return jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM pg_index " +
+                "WHERE indexrelid = to_regclass(?) AND indisvalid)", Boolean.class, index);
+    }
+
+    // Upper bound of the legacy partition, whose months get no partition of their own
+    private LocalDate legacyBound() {
+        String bound = jdbcTemplate.queryForObject("SELECT COALESCE((SELECT pg_get_expr(relpartbound, oid) " +
+                "FROM pg_class WHERE oid = to_regclass(?)), '')", String.class, LEGACY_PARTITION);
+        Matcher matcher = UPPER_BOUND.matcher(bound);
+        return matcher.find() ? LocalDate.parse(matcher.group(1)) : null;
+    }
+
+    // Serializes conversion and partition creation across nodes; released at commit
+    private void lock() {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('expense-partitions'))");
+    }
+
+    // 'r' plain table, 'p' partitioned, empty if it does not exist
+    private String tableKind() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE((SELECT relkind::text FROM pg_class WHERE oid = to_regclass('expenses')), '')",
+                String.class);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!enabled) {
+            return;
+        }
+        try {
+            if ("r".equals(tableKind())) {
+                convert(YearMonth.now());
+            }
+            ensurePartitions(YearMonth.now());
+        } catch (RuntimeException e) {
+            log.error("Could not partition expenses, continuing with the table as it is: {}", e.getMessage(), e);
+        }
+    }
+
+    // Before the web server and the @Scheduled triggers start, so nothing reads expenses mid-conversion
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
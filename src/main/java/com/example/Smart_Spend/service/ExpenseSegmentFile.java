@@ -0,0 +1,352 @@
+package com.example.Smart_Spend.service;
+
+import com.example.Smart_Spend.entity.Expense;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Immutable, compressed, columnar file holding one month of archived expenses.
+ * <p>
+ * Rows are grouped into one deflated block per user, so reading a user's month touches a
+ * single block. Inside a block each column is stored contiguously and numbers are delta- and
+ * varint-encoded, which compresses far better than rows. Layout:
+ * <pre>
+ * "SSEG" version | block* | index | index offset (long) | "SSEG"
+ * index: user count, then per user in ascending id order: id, offset, length, rows, CRC32
+ * </pre>
+ */
+public final class ExpenseSegmentFile {
+
+    private static final int MAGIC = 0x53534547; // "SSEG"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int TRAILER_BYTES = 12;
+    private static final int AMOUNT_SCALE = 2;
+
+    private ExpenseSegmentFile() {
+    }
+
+    public record Row(long id, long userId, String title, BigDecimal amount, String category,
+                      Expense.TransactionType type, LocalDate transactionDate, String description,
+                      Long recurringId, LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+        // Detached and without its user: archived rows are read-only
+        public Expense toExpense() {
+            Expense expense = new Expense();
+            expense.setId(id);
+            expense.setTitle(title);
+            expense.setAmount(amount);
+            expense.setCategory(category);
+            expense.setType(type);
+            expense.setTransactionDate(transactionDate);
+            expense.setDescription(description);
+            expense.setRecurringId(recurringId);
+            expense.setCreatedAt(createdAt);
+            expense.setUpdatedAt(updatedAt);
+            return expense;
+        }
+    }
+
+    /** Where each user's block is; the only part of a file that is read whole. */
+    public record Index(long[] userIds, long[] offsets, int[] lengths, int[] rowCounts, int[] checksums) {
+
+        public boolean contains(long userId) {
+            return Arrays.binarySearch(userIds, userId) >= 0;
+        }
+
+        public long rowCount() {
+            return Arrays.stream(rowCounts).asLongStream().sum();
+        }
+    }
+
+    public static Writer create(Path path) throws IOException {
+        return new Writer(path);
+    }
+
+    public static Index readIndex(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES) {
+                throw new IOException("Not an expense segment: " + path);
+            }
+            ByteBuffer header = read(channel, 0, HEADER_BYTES);
+            ByteBuffer trailer = read(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+            long indexOffset = trailer.getLong();
+            if (header.getInt() != MAGIC || trailer.getInt() != MAGIC) {
+                throw new IOException("Not an expense segment: " + path);
+            }
+            if (header.getInt() != VERSION) {
+                throw new IOException("Unsupported expense segment version: " + path);
+            }
+            ByteBuffer index = read(channel, indexOffset, (int) (size - TRAILER_BYTES - indexOffset));
+            int users = index.getInt();
+            Index result = new Index(new long[users], new long[users], new int[users], new int[users], new int[users]);
+            for (int i = 0; i < users; i++) {
+                result.userIds[i] = index.getLong();
+                result.offsets[i] = index.getLong();
+                result.lengths[i] = index.getInt();
+                result.rowCounts[i] = index.getInt();
+                result.checksums[i] = index.getInt();
+            }
+            return result;
+        }
+    }
+
+    /** The user's rows in the order they were written, or none if the file has no block for them. */
+    public static List<Row> read(Path path, Index index, long userId) throws IOException {
+        int i = Arrays.binarySearch(index.userIds(), userId);
+        if (i < 0) {
+            return List.of();
+        }
+        ByteBuffer block;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            block = read(channel, index.offsets()[i], index.lengths()[i]);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(block.duplicate());
+        if ((int) crc.getValue() != index.checksums()[i]) {
+            throw new IOException("Corrupt block for user " + userId + " in " + path);
+        }
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(
+                new ByteArrayInputStream(block.array(), block.arrayOffset(), block.remaining())))) {
+            return decode(in, userId);
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Truncated expense segment");
+            }
+        }
+        return buffer.flip();
+    }
+
+    // Columns in the order encode() writes them
+    private static List<Row> decode(DataInputStream in, long userId) throws IOException {
+        int n = (int) readVarLong(in);
+        long[] ids = new long[n];
+        long[] dates = new long[n];
+        long[] cents = new long[n];
+        long[] recurring = new long[n];
+        long[] created = new long[n];
+        long[] updated = new long[n];
+        readDeltas(in, ids);
+        readDeltas(in, dates);
+        for (int i = 0; i < n; i++) {
+            cents[i] = readVarLong(in);
+        }
+        byte[] types = in.readNBytes(n);
+        for (int i = 0; i < n; i++) {
+            recurring[i] = readVarLong(in);
+        }
+        readDeltas(in, created);
+        readDeltas(in, updated);
+        String[] categories = readStrings(in, n);
+        String[] titles = readStrings(in, n);
+        String[] descriptions = readStrings(in, n);
+
+        Expense.TransactionType[] typeValues = Expense.TransactionType.values();
+        List<Row> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            rows.add(new Row(ids[i], userId, titles[i], BigDecimal.valueOf(cents[i], AMOUNT_SCALE), categories[i],
+                    typeValues[types[i]], LocalDate.ofEpochDay(dates[i]), descriptions[i],
+                    recurring[i] == 0 ? null : recurring[i], toDateTime(created[i]), toDateTime(updated[i])));
+        }
+        return rows;
+    }
+
+    private static void encode(DataOutputStream out, List<Row> rows) throws IOException {
+        int n = rows.size();
+        writeVarLong(out, n);
+        writeDeltas(out, rows.stream().mapToLong(Row::id).toArray());
+        writeDeltas(out, rows.stream().mapToLong(r -> r.transactionDate().toEpochDay()).toArray());
+        for (Row row : rows) {
+            writeVarLong(out, row.amount().setScale(AMOUNT_SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+        }
+        for (Row row : rows) {
+            out.writeByte(row.type().ordinal());
+        }
+        for (Row row : rows) {
+            writeVarLong(out, row.recurringId() == null ? 0 : row.recurringId());
+        }
+        writeDeltas(out, rows.stream().mapToLong(r -> fromDateTime(r.createdAt())).toArray());
+        writeDeltas(out, rows.stream().mapToLong(r -> fromDateTime(r.updatedAt())).toArray());
+        for (Row row : rows) {
+            writeString(out, row.category());
+        }
+        for (Row row : rows) {
+            writeString(out, row.title());
+        }
+        for (Row row : rows) {
+            writeString(out, row.description());
+        }
+    }
+
+    // Epoch millis of the stored local time; Long.MIN_VALUE for null
+    private static long fromDateTime(LocalDateTime value) {
+        return value == null ? Long.MIN_VALUE : value.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        if (millis == Long.MIN_VALUE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), Math.floorMod(millis, 1000) * 1_000_000,
+                ZoneOffset.UTC);
+    }
+
+    private static void writeDeltas(DataOutputStream out, long[] values) throws IOException {
+        long previous = 0;
+        for (long value : values) {
+            writeVarLong(out, value - previous);
+            previous = value;
+        }
+    }
+
+    private static void readDeltas(DataInputStream in, long[] values) throws IOException {
+        long previous = 0;
+        for (int i = 0; i < values.length; i++) {
+            previous += readVarLong(in);
+            values[i] = previous;
+        }
+    }
+
+    // Length + 1, so 0 stands for null
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static String[] readStrings(DataInputStream in, int n) throws IOException {
+        String[] values = new String[n];
+        for (int i = 0; i < n; i++) {
+            int length = (int) readVarLong(in);
+            values[i] = length == 0 ? null : new String(in.readNBytes(length - 1), StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    // Zigzag varint: small magnitudes of either sign take one or two bytes
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated expense segment block");
+            }
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (v >>> 1) ^ -(v & 1);
+            }
+        }
+        throw new IOException("Malformed varint in expense segment block");
+    }
+
+    /**
+     * Writes a segment front to back. Users must come in ascending id order; the file is only
+     * valid once {@link #finish()} has written the index and forced it to disk.
+     */
+    public static final class Writer implements Closeable {
+
+        private final DataOutputStream out;
+        private final FileChannel channel;
+        private final ByteArrayOutputStream index = new ByteArrayOutputStream();
+        private final DataOutputStream indexOut = new DataOutputStream(index);
+        private long position = HEADER_BYTES;
+        private long lastUserId = Long.MIN_VALUE;
+        private int users;
+
+        private Writer(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        }
+
+        public void write(long userId, List<Row> rows) throws IOException {
+            if (userId <= lastUserId) {
+                throw new IllegalArgumentException("Users must be written in ascending id order");
+            }
+            if (rows.isEmpty()) {
+                return;
+            }
+            ByteArrayOutputStream block = new ByteArrayOutputStream();
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try (DataOutputStream blockOut = new DataOutputStream(new DeflaterOutputStream(block, deflater))) {
+                encode(blockOut, rows);
+            } finally {
+                deflater.end();
+            }
+            byte[] bytes = block.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            out.write(bytes);
+
+            indexOut.writeLong(userId);
+            indexOut.writeLong(position);
+            indexOut.writeInt(bytes.length);
+            indexOut.writeInt(rows.size());
+            indexOut.writeInt((int) crc.getValue());
+            position += bytes.length;
+            lastUserId = userId;
+            users++;
+        }
+
+        public void finish() throws IOException {
+            out.writeInt(users);
+            index.writeTo(out);
+            out.writeLong(position);
+            out.writeInt(MAGIC);
+            out.flush();
+            channel.force(true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
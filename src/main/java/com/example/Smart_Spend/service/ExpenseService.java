@@ -1,13 +1,23 @@
 package com.example.Smart_Spend.service;
 
+import com.example.Smart_Spend.dto.RecentTransaction;
 import com.example.Smart_Spend.entity.Expense;
+import com.example.Smart_Spend.repository.ExpenseMonthRollupRepository;
 import com.example.Smart_Spend.repository.ExpenseRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -18,6 +28,9 @@ public class ExpenseService {
 
     private final ExpenseRepository expenseRepository;
     private final BudgetService budgetService;
+    private final DataVersionService dataVersionService;
+    private final ExpenseMonthRollupRepository rollupRepository;
+    private final ExpenseArchiveService archiveService;
 
     @Transactional(readOnly = true)
     public List<Expense> getExpensesByUser(Long userId) {
@@ -25,9 +38,35 @@ public class ExpenseService {
         return expenseRepository.findByUserIdOrderByTransactionDateDesc(userId);
     }
 
+    /**
+     * One month of the user's transactions, newest first. Archived months are read from their
+     * segment file on demand; rows added to such a month since are still in the table. The file
+     * is read outside any transaction, so no connection is held meanwhile.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<Expense> getExpensesForMonth(Long userId, YearMonth month) {
+        List<Expense> expenses = new ArrayList<>(
+                expenseRepository.findByUserAndDateRange(userId, month.atDay(1), month.atEndOfMonth()));
+        archiveService.readMonth(userId, month).forEach(row -> expenses.add(row.toExpense()));
+        expenses.sort(Comparator.comparing(Expense::getTransactionDate).thenComparing(Expense::getId).reversed());
+        return expenses;
+    }
+
+    // Reads segment indexes that are not cached yet
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<YearMonth> getArchivedMonths(Long userId) {
+        return archiveService.getArchivedMonths(userId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<RecentTransaction> getRecentTransactions(Long userId, int limit) {
+        return expenseRepository.findRecentTransactions(userId, Limit.of(limit));
+    }
+
     public Expense saveExpense(Expense expense) {
         log.debug("Saving expense: {} for user: {}", expense.getTitle(), expense.getUser().getId());
         Expense savedExpense = expenseRepository.save(expense);
+        dataVersionService.bump(expense.getUser().getId());
 
         try {
             budgetService.checkBudgetAlert(expense.getUser().getId(), expense.getCategory(),
@@ -42,7 +81,10 @@ public class ExpenseService {
 
     public void deleteExpense(Long id) {
         log.debug("Deleting expense: {}", id);
-        expenseRepository.deleteById(id);
+        expenseRepository.findById(id).ifPresent(expense -> {
+            expenseRepository.delete(expense);
+            dataVersionService.bump(expense.getUser().getId());
+        });
     }
 
     @Transactional(readOnly = true)
@@ -53,6 +95,25 @@ public class ExpenseService {
     @Transactional(readOnly = true)
     public List<Object[]> getCategoryWiseExpenses(Long userId, int month, int year) {
         log.debug("Getting category-wise expenses for user: {} for {}/{}", userId, month, year);
-        return expenseRepository.getCategoryWiseExpenses(userId, month, year);
+        return withArchived(expenseRepository.getCategoryWiseExpenses(userId, month, year), userId, month, year);
+    }
+
+    // Only past months can be archived; their rollups add to whatever rows the table still has
+    private List<Object[]> withArchived(List<Object[]> live, Long userId, int month, int year) {
+        if (!YearMonth.of(year, month).isBefore(YearMonth.now())) {
+            return live;
+        }
+        List<Object[]> archived = rollupRepository.getCategoryWiseExpenses(userId, month, year);
+        if (archived.isEmpty()) {
+            return live;
+        }
+        Map<String, BigDecimal> totals = new LinkedHashMap<>();
+        for (Object[] row : live) {
+            totals.merge((String) row[0], (BigDecimal) row[1], BigDecimal::add);
+        }
+        for (Object[] row : archived) {
+            totals.merge((String) row[0], (BigDecimal) row[1], BigDecimal::add);
+        }
+        return totals.entrySet().stream().map(e -> new Object[]{e.getKey(), e.getValue()}).toList();
     }
 }
\ No newline at end of file
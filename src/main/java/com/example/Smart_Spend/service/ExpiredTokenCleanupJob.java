@@ -0,0 +1,26 @@
+package com.example.Smart_Spend.service;
+
+import com.example.Smart_Spend.repository.UserTokenRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Component
+@RequiredArgsConstructor
+public class ExpiredTokenCleanupJob implements MaintenanceJob {
+
+    private final UserTokenRepository tokenRepository;
+
+    @Override
+    public String getName() {
+        return "expired-token-cleanup";
+    }
+
+    @Override
+    @Transactional
+    public int runChunk(int batchSize) {
+        return tokenRepository.deleteExpiredChunk(LocalDateTime.now(), batchSize);
+    }
+}
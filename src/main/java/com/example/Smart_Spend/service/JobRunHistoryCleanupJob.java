@@ -0,0 +1,30 @@
+package com.example.Smart_Spend.service;
+
+import com.example.Smart_Spend.repository.JobRunRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Component
+@RequiredArgsConstructor
+public class JobRunHistoryCleanupJob implements MaintenanceJob {
+
+    private final JobRunRepository runRepository;
+
+    @Value("${app.cluster.history-retention-days:30}")
+    private int retentionDays;
+
+    @Override
+    public String getName() {
+        return "job-run-history-cleanup";
+    }
+
+    @Override
+    @Transactional
+    public int runChunk(int batchSize) {
+        return runRepository.deleteStartedBeforeChunk(LocalDateTime.now().minusDays(retentionDays), batchSize);
+    }
+}
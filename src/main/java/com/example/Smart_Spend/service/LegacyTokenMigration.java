@@ -0,0 +1,88 @@
+package com.example.Smart_Spend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Copies outstanding tokens from the legacy users columns into user_tokens (hashed, as
+ * {@link TokenService} stores them). Only runs while the columns exist, so once they are
+ * dropped every startup is a no-op. Nodes of the previous release still read and write the
+ * columns during a rolling deploy, so they are copied on each start and only dropped when
+ * {@code app.tokens.drop-legacy-columns} is set.
+ */
+@Component
+@Slf4j
+public class LegacyTokenMigration implements CommandLineRunner {
+
+    private static final List<String> LEGACY_COLUMNS = List.of("verification_token", "reset_token", "reset_token_expiry");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long verificationTtlHours;
+    private final boolean dropLegacyColumns;
+
+    public LegacyTokenMigration(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.tokens.verification-ttl-hours:168}") long verificationTtlHours,
+                                @Value("${app.tokens.drop-legacy-columns:false}") boolean dropLegacyColumns) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.verificationTtlHours = verificationTtlHours;
+        this.dropLegacyColumns = dropLegacyColumns;
+    }
+
+    @Override
+    public void run(String... args) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> migrate());
+        } catch (RuntimeException e) {
+            log.error("Could not migrate legacy email tokens: {}", e.getMessage(), e);
+        }
+    }
+
+    private void migrate() {
+        // Serializes nodes starting together; released at commit
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('legacy-token-migration'))");
+        Set<String> columns = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT column_name FROM information_schema.columns " +
+                "WHERE table_schema = current_schema() AND table_name = 'users' AND column_name IN (?, ?, ?)",
+                String.class, LEGACY_COLUMNS.toArray()));
+        if (columns.isEmpty()) {
+            return;
+        }
+
+        int copied = 0;
+        if (columns.contains("verification_token")) {
+            copied += jdbcTemplate.update("INSERT INTO user_tokens (token_hash, user_id, purpose, expires_at, created_at) " +
+                    "SELECT encode(sha256(convert_to(verification_token, 'UTF8')), 'hex'), id, 'VERIFY_EMAIL', " +
+                    "now() + make_interval(hours => ?), now() " +
+                    "FROM users WHERE verification_token IS NOT NULL " +
+                    "ON CONFLICT DO NOTHING", (int) verificationTtlHours);
+        }
+        if (columns.contains("reset_token") && columns.contains("reset_token_expiry")) {
+            copied += jdbcTemplate.update("INSERT INTO user_tokens (token_hash, user_id, purpose, expires_at, created_at) " +
+                    "SELECT encode(sha256(convert_to(reset_token, 'UTF8')), 'hex'), id, 'RESET_PASSWORD', reset_token_expiry, now() " +
+                    "FROM users WHERE reset_token IS NOT NULL AND reset_token_expiry > now() " +
+                    "ON CONFLICT DO NOTHING");
+        }
+        if (copied > 0) {
+            log.info("Copied {} legacy email tokens into user_tokens", copied);
+        }
+
+        if (dropLegacyColumns) {
+            for (String column : LEGACY_COLUMNS) {
+                jdbcTemplate.execute("ALTER TABLE users DROP COLUMN IF EXISTS " + column);
+            }
+            log.info("Dropped legacy token columns {} from users", columns);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.Smart_Spend.service;
+
+/**
+ * A unit of periodic housekeeping run by {@link MaintenanceService}.
+ * Jobs work in bounded chunks so no single statement locks a large number of rows.
+ */
+public interface MaintenanceJob {
+
+    String getName();
+
+    /**
+     * Processes at most {@code batchSize} rows in its own transaction.
+     * Returns the number of rows affected; fewer than {@code batchSize} means the job is done.
+     */
+    int runChunk(int batchSize);
+}
@@ -0,0 +1,102 @@
+package com.example.Smart_Spend.service;
+
+import com.example.Smart_Spend.entity.MaintenanceRun;
+import com.example.Smart_Spend.repository.MaintenanceRunRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Not @Transactional at class level: every job chunk commits on its own
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MaintenanceService {
+
+    private final List<MaintenanceJob> jobs;
+    private final MaintenanceRunRepository runRepository;
+    private final MeterRegistry meterRegistry;
+    private final ClusterJobService clusterJobs;
+
+    @Value("${app.maintenance.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.maintenance.max-chunks-per-run:500}")
+    private int maxChunksPerRun;
+
+    @Scheduled(cron = "${app.maintenance.cron:0 0 3 * * *}")
+    public void scheduledRun() {
+        log.info("Starting scheduled maintenance");
+        try {
+            runAll();
+        } catch (Exception e) {
+            log.warn("Scheduled maintenance skipped: {}", e.getMessage());
+        }
+    }
+
+    // One run at a time across all nodes, whether scheduled or started from the admin page
+    public List<MaintenanceRun> runAll() {
+        List<MaintenanceRun> runs = new ArrayList<>();
+        boolean ran = clusterJobs.runExclusive("maintenance", () -> {
+            for (MaintenanceJob job : jobs) {
+                ClusterJobService.checkLease();
+                runs.add(runJob(job));
+            }
+        });
+        if (!ran) {
+            throw new RuntimeException("Maintenance is already running");
+        }
+        return runs;
+    }
+
+    @Transactional(readOnly = true)
+    public List<MaintenanceRun> getRecentRuns() {
+        return runRepository.findTop20ByOrderByStartedAtDesc();
+    }
+
+    private MaintenanceRun runJob(MaintenanceJob job) {
+        MaintenanceRun run = new MaintenanceRun();
+        run.setJobName(job.getName());
+        run = runRepository.save(run);
+
+        long start = System.nanoTime();
+        try {
+            int affected;
+            do {
+                ClusterJobService.checkLease();
+                affected = job.runChunk(batchSize);
+                run.setRowsAffected(run.getRowsAffected() + affected);
+                run.setChunks(run.getChunks() + 1);
+            } while (affected >= batchSize && run.getChunks() < maxChunksPerRun);
+
+            run.setStatus(MaintenanceRun.Status.SUCCESS);
+            log.info("Maintenance job {} affected {} rows in {} chunks",
+                    job.getName(), run.getRowsAffected(), run.getChunks());
+        } catch (Exception e) {
+            run.setStatus(MaintenanceRun.Status.FAILED);
+            run.setErrorMessage(e.getMessage());
+            log.error("Maintenance job {} failed after {} chunks: {}", job.getName(), run.getChunks(), e.getMessage(), e);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        run.setDurationMs(TimeUnit.NANOSECONDS.toMillis(elapsed));
+        run.setFinishedAt(LocalDateTime.now());
+        Timer.builder("smartspend.maintenance.job.duration")
+                .tag("job", job.getName())
+                .tag("status", run.getStatus().name())
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("smartspend.maintenance.job.rows", "job", job.getName())
+                .increment(run.getRowsAffected());
+        return runRepository.save(run);
+    }
+}
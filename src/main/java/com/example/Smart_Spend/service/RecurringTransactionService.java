@@ -0,0 +1,178 @@
+package com.example.Smart_Spend.service;
+
+import com.example.Smart_Spend.entity.RecurringTransaction;
+import com.example.Smart_Spend.entity.User;
+import com.example.Smart_Spend.repository.RecurringTransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Materializes recurring rules into expenses. Due rules are popped earliest-first from the
+ * next_run_date index in batches locked with SKIP LOCKED, so any number of nodes can run the
+ * scheduler at once; each batch writes its occurrences with one JDBC batch insert and
+ * advances the rules in the same transaction. The unique (recurring_id, transaction_date)
+ * index makes a repeated occurrence a no-op.
+ */
+@Service
+@Slf4j
+public class RecurringTransactionService {
+
+    private static final String INSERT_OCCURRENCE =
+            "INSERT INTO expenses (title, amount, category, type, transaction_date, description, user_id, " +
+            "recurring_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, now(), now()) " +
+            "ON CONFLICT DO NOTHING";
+
+    private final RecurringTransactionRepository recurringRepository;
+    private final DataVersionService dataVersionService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterJobService clusterJobs;
+    private final Counter materialized;
+
+    @Value("${app.recurring.batch-size:500}")
+    private int batchSize;
+
+    // Bounds catch-up per rule per batch (e.g. a daily rule started years ago); the rest follows in later batches
+    @Value("${app.recurring.max-occurrences-per-rule:366}")
+    private int maxOccurrencesPerRule;
+
+    @Value("${app.recurring.max-batches-per-run:1000}")
+    private int maxBatchesPerRun;
+
+    public RecurringTransactionService(RecurringTransactionRepository recurringRepository,
+                                       DataVersionService dataVersionService,
+                                       JdbcTemplate jdbcTemplate,
+                                       MeterRegistry meterRegistry,
+                                       PlatformTransactionManager transactionManager,
+                                       ClusterJobService clusterJobs) {
+        this.recurringRepository = recurringRepository;
+        this.dataVersionService = dataVersionService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clusterJobs = clusterJobs;
+        this.materialized = meterRegistry.counter("smartspend.recurring.materialized");
+    }
+
+    @Transactional(readOnly = true)
+    public List<RecurringTransaction> getRulesByUser(Long userId) {
+        return recurringRepository.findByUserIdOrderByNextRunDateAsc(userId);
+    }
+
+    /**
+     * Saves a new rule and materializes whatever is already due, so a rule starting today
+     * (or in the past) shows up in the expense list straight away.
+     */
+    @Transactional
+    public RecurringTransaction create(RecurringTransaction rule, User user) {
+        if (rule.getEndDate() != null && rule.getEndDate().isBefore(rule.getStartDate())) {
+            throw new RuntimeException("End date must not be before the start date");
+        }
+        rule.setId(null);
+        rule.setUser(user);
+        rule.setNextRunDate(rule.getStartDate());
+        RecurringTransaction saved = recurringRepository.save(rule);
+        log.debug("Created {} recurring rule {} for user {}", saved.getFrequency(), saved.getId(), user.getId());
+
+        LocalDate today = LocalDate.now();
+        if (!saved.getNextRunDate().isAfter(today)) {
+            materialize(List.of(saved), today);
+        }
+        return saved;
+    }
+
+    // Generated expenses stay; only future occurrences stop
+    @Transactional
+    public boolean delete(Long id, Long userId) {
+        return recurringRepository.findById(id)
+                .filter(rule -> rule.getUser().getId().equals(userId))
+                .map(rule -> {
+                    recurringRepository.delete(rule);
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    // SKIP LOCKED already keeps nodes apart; the lease just spares the others an idle pass
+    @Scheduled(cron = "${app.recurring.cron:0 5 * * * *}")
+    public void scheduledRun() {
+        try {
+            clusterJobs.runExclusive("recurring-transactions", () -> {
+                int created = materializeDue(LocalDate.now());
+                if (created > 0) {
+                    log.info("Materialized {} recurring transactions", created);
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Recurring transaction run failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Works through every rule due on or before {@code today}, one locked batch per transaction.
+     * Returns the number of expenses inserted.
+     */
+    public int materializeDue(LocalDate today) {
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            ClusterJobService.checkLease();
+            Integer created = transactionTemplate.execute(status -> {
+                List<RecurringTransaction> due = recurringRepository.claimDue(today, batchSize);
+                return due.isEmpty() ? null : materialize(due, today);
+            });
+            if (created == null) {
+                return total;
+            }
+            total += created;
+        }
+        log.warn("Recurring transactions still due after {} batches; continuing next run", maxBatchesPerRun);
+        return total;
+    }
+
+    // Runs inside the caller's transaction; the rules are managed, so their new next_run_date flushes on commit
+    private int materialize(List<RecurringTransaction> rules, LocalDate today) {
+        List<Object[]> rows = new ArrayList<>();
+        Set<Long> users = new HashSet<>();
+        for (RecurringTransaction rule : rules) {
+            LocalDate date = rule.getNextRunDate();
+            for (int i = 0; i < maxOccurrencesPerRule && date != null && !date.isAfter(today); i++) {
+                rows.add(new Object[]{rule.getTitle(), rule.getAmount(), rule.getCategory(), rule.getType().name(),
+                        Date.valueOf(date), rule.getDescription(), rule.getUser().getId(), rule.getId()});
+                date = rule.occurrenceAfter(date);
+            }
+            rule.setNextRunDate(date);
+            users.add(rule.getUser().getId());
+        }
+
+        int created = 0;
+        for (int[] counts : jdbcTemplate.batchUpdate(INSERT_OCCURRENCE, rows, batchSize,
+                (ps, row) -> {
+                    for (int i = 0; i < row.length; i++) {
+                        ps.setObject(i + 1, row[i]);
+                    }
+                })) {
+            for (int count : counts) {
+                created += Math.max(count, 0);
+            }
+        }
+        if (created > 0) {
+            dataVersionService.bumpAll(users);
+        }
+        materialized.increment(created);
+        return created;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.Smart_Spend.service;
+
+import com.example.Smart_Spend.entity.UserToken;
+import com.example.Smart_Spend.repository.UserTokenRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Issues and redeems single-use email tokens. The raw token only ever exists in the
+ * emailed link; the database holds its hash.
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final UserTokenRepository tokenRepository;
+
+    /**
+     * Creates a token for the user, replacing any outstanding token with the same purpose.
+     * Returns the raw value to put in the link.
+     */
+    @Transactional
+    public String issue(Long userId, UserToken.Purpose purpose, Duration ttl) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        tokenRepository.deleteByUserIdAndPurpose(userId, purpose.name());
+        UserToken entity = new UserToken();
+        entity.setTokenHash(hash(token));
+        entity.setUserId(userId);
+        entity.setPurpose(purpose);
+        entity.setExpiresAt(LocalDateTime.now().plus(ttl));
+        tokenRepository.save(entity);
+        return token;
+    }
+
+    /**
+     * Redeems a token, deleting it in the same statement. Returns the owning user id
+     * if it existed, matched the purpose and had not expired.
+     */
+    @Transactional
+    public Optional<Long> consume(String token, UserToken.Purpose purpose) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        return tokenRepository.consume(hash(token), purpose.name(), LocalDateTime.now());
+    }
+
+    static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
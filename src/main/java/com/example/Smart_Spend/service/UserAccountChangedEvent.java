@@ -0,0 +1,21 @@
+package com.example.Smart_Spend.service;
+
+/**
+ * Published when a user's account row changes (status, password, settings), for caches holding users.
+ * {@code deletedEmail} is set once the user row is gone, as the email is then free to register again.
+ * Relayed to the other nodes like {@link UserDataChangedEvent}.
+ */
+public record UserAccountChangedEvent(Long userId, String deletedEmail, boolean remote) {
+
+    public UserAccountChangedEvent(Long userId) {
+        this(userId, null, false);
+    }
+
+    public UserAccountChangedEvent(Long userId, boolean remote) {
+        this(userId, null, remote);
+    }
+
+    public static UserAccountChangedEvent deleted(Long userId, String email) {
+        return new UserAccountChangedEvent(userId, email, false);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.Smart_Spend.service;
+
+/**
+ * Published when a user's expenses or budgets change, so per-user caches can drop entries.
+ * {@code remote} events were raised on another node and relayed by
+ * {@link com.example.Smart_Spend.config.InvalidationBus}; they are not relayed again.
+ */
+public record UserDataChangedEvent(Long userId, long version, boolean remote) {
+
+    public UserDataChangedEvent(Long userId, long version) {
+        this(userId, version, false);
+    }
+}
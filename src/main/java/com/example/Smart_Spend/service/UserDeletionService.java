@@ -0,0 +1,189 @@
+package com.example.Smart_Spend.service;
+
+import com.example.Smart_Spend.entity.User;
+import com.example.Smart_Spend.entity.UserDeletionJob;
+import com.example.Smart_Spend.repository.BudgetRepository;
+import com.example.Smart_Spend.repository.BudgetSummaryRepository;
+import com.example.Smart_Spend.repository.ExpenseMonthRollupRepository;
+import com.example.Smart_Spend.repository.ExpenseRepository;
+import com.example.Smart_Spend.repository.RecurringTransactionRepository;
+import com.example.Smart_Spend.repository.UserDeletionJobRepository;
+import com.example.Smart_Spend.repository.UserDataVersionRepository;
+import com.example.Smart_Spend.repository.UserRepository;
+import com.example.Smart_Spend.repository.UserTokenRepository;
+import com.example.Smart_Spend.security.AuthenticatedUser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Deletes a user and everything they own in small batches off the request thread.
+ * Each chunk commits on its own; progress is persisted after every chunk so the
+ * poller picks up where it left off after a restart.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserDeletionService {
+
+    private static final Set<UserDeletionJob.Status> ACTIVE =
+            EnumSet.of(UserDeletionJob.Status.PENDING, UserDeletionJob.Status.RUNNING);
+
+    private final UserDeletionJobRepository jobRepository;
+    private final UserRepository userRepository;
+    private final ExpenseRepository expenseRepository;
+    private final RecurringTransactionRepository recurringRepository;
+    private final BudgetRepository budgetRepository;
+    private final BudgetSummaryRepository summaryRepository;
+    private final ExpenseMonthRollupRepository rollupRepository;
+    private final UserTokenRepository tokenRepository;
+    private final UserDataVersionRepository dataVersionRepository;
+    private final ClusterJobService clusterJobs;
+    private final SessionRegistry sessionRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.user-deletion.batch-size:500}")
+    private int batchSize;
+
+    // Pause between chunks so deletion never monopolises connections or I/O
+    @Value("${app.user-deletion.pause-ms:200}")
+    private long pauseMs;
+
+    @Transactional
+    public UserDeletionJob requestDeletion(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (user.getRole() == User.Role.ADMIN) {
+            throw new RuntimeException("Cannot delete admin user");
+        }
+        if (jobRepository.existsByUserIdAndStatusIn(userId, ACTIVE)) {
+            throw new RuntimeException("Deletion already in progress");
+        }
+
+        // Block logins and re-enabling while the data is being removed, and keep the
+        // rollover job from copying budgets the BUDGETS phase has already passed
+        user.setDeletionRequestedAt(LocalDateTime.now());
+        user.setEmailVerified(false);
+        user.setBudgetRollover(false);
+        userRepository.save(user);
+        eventPublisher.publishEvent(new UserAccountChangedEvent(userId));
+        expireSessions(user);
+
+        UserDeletionJob job = new UserDeletionJob();
+        job.setUserId(userId);
+        job.setUserEmail(user.getEmail());
+        log.info("Scheduled deletion of user {}", user.getEmail());
+        return jobRepository.save(job);
+    }
+
+    // Signed-in sessions would otherwise keep adding rows the phases have already swept,
+    // and the USER phase would then fail on the foreign keys
+    private void expireSessions(User user) {
+        List<SessionInformation> sessions = sessionRegistry.getAllSessions(AuthenticatedUser.from(user), false);
+        sessions.forEach(SessionInformation::expireNow);
+        log.debug("Expired {} sessions of user {}", sessions.size(), user.getEmail());
+    }
+
+    @Transactional(readOnly = true)
+    public List<UserDeletionJob> getRecentJobs() {
+        return jobRepository.findTop20ByOrderByCreatedAtDesc();
+    }
+
+    // Cheap existence check first, so idle polls neither take the lease nor add run history
+    @Scheduled(fixedDelayString = "${app.user-deletion.poll-ms:5000}")
+    public void processPendingJobs() {
+        if (jobRepository.existsByStatusIn(ACTIVE)) {
+            clusterJobs.runExclusive("user-deletion", this::drainPendingJobs);
+        }
+    }
+
+    private void drainPendingJobs() {
+        Optional<UserDeletionJob> next;
+        while ((next = jobRepository.findFirstByStatusInOrderByCreatedAtAsc(ACTIVE)).isPresent()) {
+            if (!process(next.get())) {
+                return;
+            }
+        }
+    }
+
+    private boolean process(UserDeletionJob job) {
+        log.info("Processing deletion job {} for user {} (phase {})", job.getId(), job.getUserEmail(), job.getPhase());
+        job.setStatus(UserDeletionJob.Status.RUNNING);
+        job = jobRepository.save(job);
+
+        try {
+            while (job.getPhase() != null) {
+                int deleted = deleteChunk(job);
+                if (deleted > 0) {
+                    job.setRowsDeleted(job.getRowsDeleted() + deleted);
+                }
+                if (deleted < batchSize) {
+                    job.setPhase(nextPhase(job.getPhase()));
+                }
+                job = jobRepository.save(job);
+                Thread.sleep(pauseMs);
+            }
+            job.setStatus(UserDeletionJob.Status.COMPLETED);
+            job.setFinishedAt(LocalDateTime.now());
+            jobRepository.save(job);
+            log.info("User {} deleted ({} rows)", job.getUserEmail(), job.getRowsDeleted());
+            return true;
+        } catch (InterruptedException e) {
+            // Leave the job RUNNING; it resumes on the next start
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.error("Deletion job {} failed in phase {}: {}", job.getId(), job.getPhase(), e.getMessage(), e);
+            job.setStatus(UserDeletionJob.Status.FAILED);
+            job.setErrorMessage(e.getMessage());
+            jobRepository.save(job);
+            return true;
+        }
+    }
+
+    private int deleteChunk(UserDeletionJob job) {
+        switch (job.getPhase()) {
+            case RECURRING:
+                return recurringRepository.deleteChunkByUserId(job.getUserId(), batchSize);
+            case EXPENSES:
+                return expenseRepository.deleteChunkByUserId(job.getUserId(), batchSize);
+            case BUDGETS:
+                int budgets = budgetRepository.deleteChunkByUserId(job.getUserId(), batchSize);
+                if (budgets > 0) {
+                    eventPublisher.publishEvent(new BudgetChangedEvent(job.getUserId()));
+                }
+                return budgets;
+            case TOKENS:
+                return tokenRepository.deleteByUserId(job.getUserId());
+            case USER:
+                if (userRepository.existsById(job.getUserId())) {
+                    dataVersionRepository.deleteById(job.getUserId());
+                    summaryRepository.deleteByUserId(job.getUserId());
+                    rollupRepository.deleteByUserId(job.getUserId());
+                    userRepository.deleteById(job.getUserId());
+                    eventPublisher.publishEvent(UserAccountChangedEvent.deleted(job.getUserId(), job.getUserEmail()));
+                    return 1;
+                }
+                return 0;
+            default:
+                return 0;
+        }
+    }
+
+    private UserDeletionJob.Phase nextPhase(UserDeletionJob.Phase phase) {
+        UserDeletionJob.Phase[] phases = UserDeletionJob.Phase.values();
+        return phase.ordinal() + 1 < phases.length ? phases[phase.ordinal() + 1] : null;
+    }
+}
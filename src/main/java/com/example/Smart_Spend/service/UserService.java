@@ -1,62 +1,94 @@
 package com.example.Smart_Spend.service;
 
 import com.example.Smart_Spend.entity.User;
+import com.example.Smart_Spend.entity.UserToken;
 import com.example.Smart_Spend.repository.UserRepository;
+import com.example.Smart_Spend.security.AuthenticatedUser;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 @Transactional
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
     private final EmailService emailService;
     private final PasswordEncoder passwordEncoder;
+    private final TokenService tokenService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${app.base.url}")
     private String baseUrl;
 
+    @Value("${app.tokens.verification-ttl-hours:168}")
+    private long verificationTtlHours = 168;
+
+    @Value("${app.tokens.reset-ttl-hours:24}")
+    private long resetTtlHours = 24;
+
     // Constructor injection with @Lazy for PasswordEncoder to break circular dependency
     public UserService(UserRepository userRepository,
                        EmailService emailService,
-                       @Lazy PasswordEncoder passwordEncoder) {
+                       @Lazy PasswordEncoder passwordEncoder,
+                       TokenService tokenService,
+                       ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.emailService = emailService;
         this.passwordEncoder = passwordEncoder;
+        this.tokenService = tokenService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
+        User user = userRepository.loadByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + email));
 
-        // ✅ Return your custom User entity directly (since it implements UserDetails)
-        // But we need to check if email is verified for login
+        if (user.isPendingDeletion()) {
+            throw new DisabledException("This account is being deleted.");
+        }
+
+        // We need to check if email is verified for login
         if (!user.isEmailVerified()) {
             throw new RuntimeException("Email not verified. Please check your email and verify your account.");
         }
         
-        return user; // Your User entity implements UserDetails
+        // Keep only a compact principal in the session, not the entity
+        return AuthenticatedUser.from(user);
+    }
+
+    // Called by Spring Security after a successful login whose stored hash is outdated
+    // (legacy un-prefixed BCrypt, lower cost, or a different algorithm)
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.loadByEmail(user.getUsername()).ifPresent(entity -> {
+            entity.setPassword(newPassword);
+            userRepository.save(entity);
+            eventPublisher.publishEvent(new UserAccountChangedEvent(entity.getId()));
+        });
+        return user instanceof AuthenticatedUser principal ? principal.withPassword(newPassword) : user;
     }
 
     // Add this method to find your custom User entity
     public User findByEmail(String email) {
-        return userRepository.findByEmail(email).orElse(null);
+        return userRepository.loadByEmail(email).orElse(null);
     }
 
     // Or better yet, return Optional<User>
     public Optional<User> findUserByEmail(String email) {
-        return userRepository.findByEmail(email);
+        return userRepository.loadByEmail(email);
     }
 
     public User registerUser(String email, String password, String firstName, String lastName) {
@@ -69,48 +101,47 @@ public class UserService implements UserDetailsService {
         user.setPassword(passwordEncoder.encode(password));
         user.setFirstName(firstName);
         user.setLastName(lastName);
-        user.setVerificationToken(UUID.randomUUID().toString());
         user.setRole(User.Role.USER);
 
         User savedUser = userRepository.save(user);
-        emailService.sendVerificationEmail(savedUser);
+        String token = tokenService.issue(savedUser.getId(), UserToken.Purpose.VERIFY_EMAIL,
+                Duration.ofHours(verificationTtlHours));
+        emailService.sendVerificationEmail(savedUser, token);
         return savedUser;
     }
 
     public boolean verifyEmail(String token) {
-        Optional<User> userOpt = userRepository.findByVerificationToken(token);
+        Optional<User> userOpt = tokenService.consume(token, UserToken.Purpose.VERIFY_EMAIL)
+                .flatMap(userRepository::findById);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
             user.setEmailVerified(true);
-            user.setVerificationToken(null);
             userRepository.save(user);
+            eventPublisher.publishEvent(new UserAccountChangedEvent(user.getId()));
             return true;
         }
         return false;
     }
 
     public void initiatePasswordReset(String email) {
-        Optional<User> userOpt = userRepository.findByEmail(email);
+        Optional<User> userOpt = userRepository.loadByEmail(email);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
-            user.setResetToken(UUID.randomUUID().toString());
-            user.setResetTokenExpiry(LocalDateTime.now().plusHours(24));
-            userRepository.save(user);
-            emailService.sendPasswordResetEmail(user);
+            String token = tokenService.issue(user.getId(), UserToken.Purpose.RESET_PASSWORD,
+                    Duration.ofHours(resetTtlHours));
+            emailService.sendPasswordResetEmail(user, token);
         }
     }
 
     public boolean resetPassword(String token, String newPassword) {
-        Optional<User> userOpt = userRepository.findByResetToken(token);
+        Optional<User> userOpt = tokenService.consume(token, UserToken.Purpose.RESET_PASSWORD)
+                .flatMap(userRepository::findById);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
-            if (user.getResetTokenExpiry().isAfter(LocalDateTime.now())) {
-                user.setPassword(passwordEncoder.encode(newPassword));
-                user.setResetToken(null);
-                user.setResetTokenExpiry(null);
-                userRepository.save(user);
-                return true;
-            }
+            user.setPassword(passwordEncoder.encode(newPassword));
+            userRepository.save(user);
+            eventPublisher.publishEvent(new UserAccountChangedEvent(user.getId()));
+            return true;
         }
         return false;
     }
@@ -0,0 +1,29 @@
+-- Runs after Hibernate's ddl-auto (spring.jpa.defer-datasource-initialization).
+-- Every statement must be idempotent; it is executed on each startup.
+
+-- Admin user search: trigram indexes for substring matches, pattern-ops for short prefixes
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_users_email_trgm ON users USING gin (lower(email) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_name_trgm ON users USING gin (lower(first_name || ' ' || last_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_email_prefix ON users (lower(email) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_users_name_prefix ON users (lower(first_name || ' ' || last_name) text_pattern_ops);
+
+-- Shared HTTP session store (app.session.store=database); times are epoch millis
+CREATE TABLE IF NOT EXISTS http_sessions (
+    id                   VARCHAR(64) PRIMARY KEY,
+    principal_name       VARCHAR(255),
+    creation_time        BIGINT NOT NULL,
+    last_access_time     BIGINT NOT NULL,
+    max_inactive_seconds INT NOT NULL,
+    expiry_time          BIGINT NOT NULL,
+    attributes           BYTEA
+);
+CREATE INDEX IF NOT EXISTS idx_http_sessions_expiry ON http_sessions (expiry_time);
+CREATE INDEX IF NOT EXISTS idx_http_sessions_principal ON http_sessions (principal_name);
+
+-- The unique index on budgets (user, category, month) is created by BudgetDuplicateMigration,
+-- which first archives and removes earlier duplicates.
+
+-- One expense per recurring rule and occurrence date; generation inserts with ON CONFLICT DO NOTHING
+CREATE UNIQUE INDEX IF NOT EXISTS uk_expenses_recurring_occurrence
+    ON expenses (recurring_id, transaction_date) WHERE recurring_id IS NOT NULL;
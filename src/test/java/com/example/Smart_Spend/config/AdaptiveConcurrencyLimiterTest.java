@@ -0,0 +1,50 @@
+package com.example.Smart_Spend.config;
+
+import com.example.Smart_Spend.config.AdaptiveConcurrencyLimiter.Priority;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long THRESHOLD = 1_000_000_000L;
+
+    @Test
+    void lowPriorityIsShedBeforeCritical() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, THRESHOLD, 0.5);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(Priority.LOW));
+        }
+        assertFalse(limiter.tryAcquire(Priority.LOW));
+        assertTrue(limiter.tryAcquire(Priority.NORMAL));
+        assertTrue(limiter.tryAcquire(Priority.CRITICAL));
+        assertEquals(7, limiter.getInFlight());
+    }
+
+    @Test
+    void slowResponsesShrinkLimitOncePerWindow() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100, THRESHOLD, 0.5);
+
+        // nanoTime values can be negative; the first slow sample still counts
+        long start = System.nanoTime();
+        limiter.onSample(2 * THRESHOLD, 5, start);
+        limiter.onSample(2 * THRESHOLD, 5, start + 1);
+        assertEquals(5, limiter.getLimit(), 0.001);
+
+        limiter.onSample(2 * THRESHOLD, 5, start + 2 * THRESHOLD);
+        limiter.onSample(2 * THRESHOLD, 5, start + 4 * THRESHOLD);
+        assertEquals(2, limiter.getLimit(), 0.001, "never below the floor");
+    }
+
+    @Test
+    void fastResponsesGrowLimitOnlyWhenSaturated() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100, THRESHOLD, 0.5);
+
+        limiter.onSample(1_000, 1, 0);
+        assertEquals(10, limiter.getLimit(), 0.001);
+
+        limiter.onSample(1_000, 8, 0);
+        assertEquals(10.1, limiter.getLimit(), 0.001);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.Smart_Spend.config;
+
+import com.example.Smart_Spend.service.BudgetChangedEvent;
+import com.example.Smart_Spend.service.CacheFlushEvent;
+import com.example.Smart_Spend.service.UserAccountChangedEvent;
+import com.example.Smart_Spend.service.UserDataChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class InvalidationBusTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ApplicationEventPublisher publisherA;
+    private ApplicationEventPublisher publisherB;
+    private InvalidationBus nodeA;
+    private InvalidationBus nodeB;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        publisherA = mock(ApplicationEventPublisher.class);
+        publisherB = mock(ApplicationEventPublisher.class);
+        nodeA = bus(publisherA);
+        nodeB = bus(publisherB);
+    }
+
+    private InvalidationBus bus(ApplicationEventPublisher publisher) {
+        return new InvalidationBus(jdbcTemplate, publisher, new DataSourceProperties(), new SimpleMeterRegistry(),
+                true, "jdbc:postgresql://localhost/test", 500, 30000);
+    }
+
+    private String sentPayload() {
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).queryForList(eq("SELECT pg_notify(?, ?)"), eq(InvalidationBus.CHANNEL), payload.capture());
+        return (String) payload.getValue();
+    }
+
+    @Test
+    void otherNodesReceiveLocalChangesAsRemoteEvents() {
+        nodeA.onUserDataChanged(new UserDataChangedEvent(7L, 42L));
+        String payload = sentPayload();
+
+        nodeB.handle(payload);
+
+        verify(publisherB).publishEvent(new UserDataChangedEvent(7L, 42L, true));
+    }
+
+    @Test
+    void budgetChangesReachOtherNodes() {
+        nodeA.onBudgetChanged(new BudgetChangedEvent(7L));
+
+        nodeB.handle(sentPayload());
+
+        verify(publisherB).publishEvent(new BudgetChangedEvent(7L, true));
+    }
+
+    @Test
+    void budgetIdsTravelAlong() {
+        nodeA.onBudgetChanged(new BudgetChangedEvent(7L, 3L));
+        nodeB.handle(sentPayload());
+        verify(publisherB).publishEvent(new BudgetChangedEvent(7L, 3L, true));
+    }
+
+    @Test
+    void deletedEmailsTravelAlong() {
+        nodeA.onUserAccountChanged(UserAccountChangedEvent.deleted(8L, "a,b:c@example.com"));
+        nodeB.handle(sentPayload());
+        verify(publisherB).publishEvent(new UserAccountChangedEvent(8L, "a,b:c@example.com", true));
+    }
+
+    @Test
+    void ignoresOwnNotificationsAndRemoteEvents() {
+        nodeA.onUserAccountChanged(new UserAccountChangedEvent(7L));
+        nodeA.handle(sentPayload());
+        nodeA.onUserAccountChanged(new UserAccountChangedEvent(8L, true));
+
+        verifyNoInteractions(publisherA);
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void unreadablePayloadFlushesEverything() {
+        nodeB.handle("other|X:not-a-user");
+
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(publisherB).publishEvent(event.capture());
+        assertInstanceOf(CacheFlushEvent.class, event.getValue());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.Smart_Spend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SingleFlight singleFlight = new SingleFlight(registry, 5000);
+
+    @Test
+    void concurrentCallersShareOneComputation() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger computations = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = pool.submit(() -> singleFlight.execute("stats", 1, () -> {
+                computations.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "result";
+            }));
+            started.await();
+            Future<String> follower = pool.submit(() -> singleFlight.execute("stats", 1, () -> {
+                computations.incrementAndGet();
+                return "other";
+            }));
+            // Give the follower time to join the in-flight call before it completes
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+            assertEquals("result", follower.get(5, TimeUnit.SECONDS));
+            assertEquals(1, computations.get());
+            assertEquals(1, registry.counter("smartspend.singleflight.calls", "name", "stats", "role", "coalesced").count());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void sequentialCallsAreNotCached() {
+        AtomicInteger computations = new AtomicInteger();
+
+        singleFlight.execute("stats", 1, computations::incrementAndGet);
+        singleFlight.execute("stats", 1, computations::incrementAndGet);
+
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    void followerRunsTheWorkItselfWhenTheLeaderIsStuck() throws Exception {
+        SingleFlight impatient = new SingleFlight(registry, 50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> leader = pool.submit(() -> impatient.execute("stats", 1, () -> {
+                started.countDown();
+                await(release);
+                return "leader";
+            }));
+            started.await();
+
+            assertEquals("follower", impatient.execute("stats", 1, () -> "follower"));
+            assertEquals(1, registry.counter("smartspend.singleflight.calls", "name", "stats", "role", "timed_out").count());
+
+            release.countDown();
+            assertEquals("leader", leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
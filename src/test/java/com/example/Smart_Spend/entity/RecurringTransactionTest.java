@@ -0,0 +1,43 @@
+package com.example.Smart_Spend.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurringTransactionTest {
+
+    private static RecurringTransaction rule(RecurringTransaction.Frequency frequency, LocalDate start, LocalDate end) {
+        RecurringTransaction rule = new RecurringTransaction();
+        rule.setFrequency(frequency);
+        rule.setStartDate(start);
+        rule.setEndDate(end);
+        return rule;
+    }
+
+    @Test
+    void monthlyKeepsStartDayAcrossShortMonths() {
+        RecurringTransaction rent = rule(RecurringTransaction.Frequency.MONTHLY, LocalDate.of(2026, 1, 31), null);
+
+        LocalDate feb = rent.occurrenceAfter(LocalDate.of(2026, 1, 31));
+        assertEquals(LocalDate.of(2026, 2, 28), feb);
+        assertEquals(LocalDate.of(2026, 3, 31), rent.occurrenceAfter(feb));
+    }
+
+    @Test
+    void dailyAndWeeklyStep() {
+        LocalDate start = LocalDate.of(2026, 3, 1);
+        assertEquals(start.plusDays(1), rule(RecurringTransaction.Frequency.DAILY, start, null).occurrenceAfter(start));
+        assertEquals(start.plusWeeks(1), rule(RecurringTransaction.Frequency.WEEKLY, start, null).occurrenceAfter(start));
+    }
+
+    @Test
+    void stopsAfterInclusiveEndDate() {
+        LocalDate start = LocalDate.of(2026, 3, 1);
+        RecurringTransaction weekly = rule(RecurringTransaction.Frequency.WEEKLY, start, start.plusWeeks(1));
+
+        assertEquals(start.plusWeeks(1), weekly.occurrenceAfter(start));
+        assertNull(weekly.occurrenceAfter(start.plusWeeks(1)));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.Smart_Spend.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private RateLimitProperties.Policy policy;
+    private RateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxKeys(2);
+        policy = new RateLimitProperties.Policy();
+        policy.setCapacity(1);
+        policy.setRefillPerMinute(0.001);
+        limiter = new RateLimiter(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void freshKeysAtCapacityDoNotResetThrottledKeys() {
+        assertEquals(0, limiter.tryAcquire("login", policy, "a"));
+        assertEquals(0, limiter.tryAcquire("login", policy, "b"));
+
+        // Full map: newcomers go untracked instead of displacing "a" and "b" or sharing a bucket
+        assertEquals(0, limiter.tryAcquire("login", policy, "c"));
+        assertEquals(0, limiter.tryAcquire("login", policy, "d"));
+        assertEquals(0, limiter.tryAcquire("login", policy, "d"));
+        limiter.sweep();
+
+        assertTrue(limiter.tryAcquire("login", policy, "a") > 0);
+        assertTrue(limiter.tryAcquire("login", policy, "b") > 0);
+    }
+
+    @Test
+    void idleKeysMakeRoomForNewOnes() {
+        policy.setRefillPerMinute(6e9);
+        assertEquals(0, limiter.tryAcquire("login", policy, "a"));
+        assertEquals(0, limiter.tryAcquire("login", policy, "b"));
+
+        // "a" and "b" refill within nanoseconds, so "c" evicts them and is tracked itself
+        policy.setRefillPerMinute(0.001);
+        assertEquals(0, limiter.tryAcquire("login", policy, "c"));
+        assertTrue(limiter.tryAcquire("login", policy, "c") > 0);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.Smart_Spend.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsBurstUpToCapacityThenRejects() {
+        TokenBucket bucket = new TokenBucket(3, 60, 0);
+
+        assertEquals(0, bucket.tryConsume(0));
+        assertEquals(0, bucket.tryConsume(0));
+        assertEquals(0, bucket.tryConsume(0));
+        long wait = bucket.tryConsume(0);
+        assertTrue(wait > 0 && wait <= SECOND, "one token per second at 60/min");
+    }
+
+    @Test
+    void refillsOverTimeAndReportsFull() {
+        TokenBucket bucket = new TokenBucket(2, 60, 0);
+        bucket.tryConsume(0);
+        bucket.tryConsume(0);
+
+        assertFalse(bucket.isFull(SECOND));
+        assertEquals(0, bucket.tryConsume(SECOND));
+        assertTrue(bucket.isFull(10 * SECOND));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.Smart_Spend.service;
+
+import com.example.Smart_Spend.dto.BudgetProgress;
+import com.example.Smart_Spend.entity.UserDataVersion;
+import com.example.Smart_Spend.repository.BudgetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BudgetProgressServiceTest {
+
+    private static final long USER = 7L;
+    private static final YearMonth MONTH = YearMonth.now();
+
+    @Mock
+    private BudgetRepository budgetRepository;
+
+    @Mock
+    private DataVersionService dataVersionService;
+
+    private final AtomicLong version = new AtomicLong(1);
+    private BudgetProgressService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(dataVersionService.current(USER))
+                .thenAnswer(invocation -> new UserDataVersion(USER, version.get(), LocalDateTime.now()));
+        service = new BudgetProgressService(budgetRepository, dataVersionService);
+    }
+
+    private static List<Object[]> rows(String spent) {
+        return List.<Object[]>of(new Object[]{1L, "Food", MONTH.getMonthValue(), MONTH.getYear(),
+                new BigDecimal("100.00"), new BigDecimal(spent)});
+    }
+
+    @Test
+    void writeDuringComputeIsNotServedAfterCommit() {
+        // The writer evicts (before its commit) and commits while the reader still holds the old totals
+        when(budgetRepository.findProgressRows(USER, MONTH.getMonthValue(), MONTH.getYear()))
+                .thenAnswer(invocation -> {
+                    service.onUserDataChanged(new UserDataChangedEvent(USER, 2));
+                    version.set(2);
+                    return rows("10.00");
+                })
+                .thenReturn(rows("50.00"));
+
+        assertEquals(new BigDecimal("10.00"), service.getProgress(USER, MONTH).get(0).spent());
+        assertEquals(new BigDecimal("50.00"), service.getProgress(USER, MONTH).get(0).spent());
+        assertEquals(new BigDecimal("50.00"), service.getProgress(USER, MONTH).get(0).spent());
+        verify(budgetRepository, times(2)).findProgressRows(USER, MONTH.getMonthValue(), MONTH.getYear());
+    }
+
+    @Test
+    void laterVersionEvictsEarlierEntries() {
+        when(budgetRepository.findProgressRows(USER, 0, 0)).thenReturn(rows("10.00"), rows("20.00"));
+
+        service.getAllProgress(USER);
+        service.onUserDataChanged(new UserDataChangedEvent(USER, 1));
+        assertEquals(new BigDecimal("10.00"), service.getAllProgress(USER).get(0).spent());
+
+        version.set(2);
+        service.onUserDataChanged(new UserDataChangedEvent(USER, 2));
+        assertEquals(new BigDecimal("20.00"), service.getAllProgress(USER).get(0).spent());
+    }
+}
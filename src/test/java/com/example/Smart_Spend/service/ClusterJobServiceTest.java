@@ -0,0 +1,110 @@
+package com.example.Smart_Spend.service;
+
+import com.example.Smart_Spend.entity.JobRun;
+import com.example.Smart_Spend.repository.JobLeaseRepository;
+import com.example.Smart_Spend.repository.JobRunRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ClusterJobServiceTest {
+
+    @Mock
+    private JobLeaseRepository leaseRepository;
+
+    @Mock
+    private JobRunRepository runRepository;
+
+    private ClusterJobService clusterJobs;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(runRepository.save(any(JobRun.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        clusterJobs = new ClusterJobService(leaseRepository, runRepository, new SimpleMeterRegistry(), "node-a", 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        clusterJobs.destroy();
+    }
+
+    @Test
+    void skipsWhenLeaseHeldElsewhere() {
+        when(leaseRepository.tryAcquire("maintenance", "node-a", 60)).thenReturn(0);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        assertFalse(clusterJobs.runExclusive("maintenance", () -> ran.set(true)));
+        assertFalse(ran.get());
+        verifyNoInteractions(runRepository);
+        verify(leaseRepository, never()).release(any(), any());
+    }
+
+    @Test
+    void runsRecordsAndReleases() {
+        when(leaseRepository.tryAcquire("maintenance", "node-a", 60)).thenReturn(1);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        assertTrue(clusterJobs.runExclusive("maintenance", () -> ran.set(true)));
+        assertTrue(ran.get());
+
+        ArgumentCaptor<JobRun> run = ArgumentCaptor.forClass(JobRun.class);
+        verify(runRepository, times(2)).save(run.capture());
+        assertEquals(JobRun.Status.SUCCESS, run.getValue().getStatus());
+        assertEquals("node-a", run.getValue().getNode());
+        verify(leaseRepository).release("maintenance", "node-a");
+    }
+
+    @Test
+    void recordsFailureReleasesAndRethrows() {
+        when(leaseRepository.tryAcquire("maintenance", "node-a", 60)).thenReturn(1);
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> clusterJobs.runExclusive("maintenance", () -> { throw new RuntimeException("boom"); }));
+        assertEquals("boom", e.getMessage());
+
+        ArgumentCaptor<JobRun> run = ArgumentCaptor.forClass(JobRun.class);
+        verify(runRepository, times(2)).save(run.capture());
+        assertEquals(JobRun.Status.FAILED, run.getValue().getStatus());
+        assertEquals("boom", run.getValue().getErrorMessage());
+        verify(leaseRepository).release("maintenance", "node-a");
+    }
+
+    @Test
+    void stopsTaskWhenLeaseIsLost() {
+        ClusterJobService shortLease = new ClusterJobService(leaseRepository, runRepository, new SimpleMeterRegistry(), "node-a", 3);
+        when(leaseRepository.tryAcquire("maintenance", "node-a", 3)).thenReturn(1);
+        when(leaseRepository.renew("maintenance", "node-a", 3)).thenReturn(0);
+        try {
+            assertThrows(CancellationException.class, () -> shortLease.runExclusive("maintenance", () -> {
+                for (int chunk = 0; chunk < 100; chunk++) {
+                    ClusterJobService.checkLease();
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }));
+        } finally {
+            shortLease.destroy();
+        }
+
+        assertFalse(Thread.currentThread().isInterrupted());
+        ArgumentCaptor<JobRun> run = ArgumentCaptor.forClass(JobRun.class);
+        verify(runRepository, times(2)).save(run.capture());
+        assertEquals(JobRun.Status.FAILED, run.getValue().getStatus());
+        verify(leaseRepository).release("maintenance", "node-a");
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.Smart_Spend.service;
+
+import com.example.Smart_Spend.entity.Expense;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpenseSegmentFileTest {
+
+    @TempDir
+    Path dir;
+
+    private static ExpenseSegmentFile.Row row(long id, long userId, String amount, LocalDate date, String description, Long recurringId) {
+        return new ExpenseSegmentFile.Row(id, userId, "Title " + id, new BigDecimal(amount), "Food",
+                Expense.TransactionType.EXPENSE, date, description, recurringId,
+                LocalDateTime.of(2024, 3, 5, 12, 30, 15, 250_000_000), null);
+    }
+
+    @Test
+    void readsBackEachUsersRows() throws IOException {
+        Path file = dir.resolve("expenses-2024-03.v1.seg");
+        List<ExpenseSegmentFile.Row> first = List.of(
+                row(10, 3, "12.50", LocalDate.of(2024, 3, 1), "Lunch ₹", null),
+                row(7, 3, "-0.05", LocalDate.of(2024, 3, 31), null, 42L));
+        List<ExpenseSegmentFile.Row> second = List.of(row(11, 9, "99999999.99", LocalDate.of(2024, 3, 15), "", null));
+        try (ExpenseSegmentFile.Writer writer = ExpenseSegmentFile.create(file)) {
+            writer.write(3, first);
+            writer.write(9, second);
+            writer.finish();
+        }
+
+        ExpenseSegmentFile.Index index = ExpenseSegmentFile.readIndex(file);
+        assertArrayEquals(new long[]{3, 9}, index.userIds());
+        assertEquals(3, index.rowCount());
+        assertEquals(first, ExpenseSegmentFile.read(file, index, 3));
+        assertEquals(second, ExpenseSegmentFile.read(file, index, 9));
+        assertTrue(ExpenseSegmentFile.read(file, index, 5).isEmpty());
+    }
+
+    @Test
+    void rejectsCorruptBlocks() throws IOException {
+        Path file = dir.resolve("expenses-2024-04.v1.seg");
+        try (ExpenseSegmentFile.Writer writer = ExpenseSegmentFile.create(file)) {
+            writer.write(1, List.of(row(1, 1, "5.00", LocalDate.of(2024, 4, 2), "x", null)));
+            writer.finish();
+        }
+        ExpenseSegmentFile.Index index = ExpenseSegmentFile.readIndex(file);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[(int) index.offsets()[0] + 1] ^= 0x40;
+        Files.write(file, bytes);
+
+        assertThrows(IOException.class, () -> ExpenseSegmentFile.read(file, index, 1));
+    }
+
+    @Test
+    void usersMustBeWrittenInOrder() throws IOException {
+        try (ExpenseSegmentFile.Writer writer = ExpenseSegmentFile.create(dir.resolve("expenses-2024-05.v1.seg"))) {
+            writer.write(5, List.of(row(1, 5, "1.00", LocalDate.of(2024, 5, 1), null, null)));
+            assertThrows(IllegalArgumentException.class,
+                    () -> writer.write(2, List.of(row(2, 2, "1.00", LocalDate.of(2024, 5, 1), null, null))));
+        }
+    }
+}
@@ -1,18 +1,20 @@
 package com.example.Smart_Spend.service;
 
 import com.example.Smart_Spend.entity.User;
+import com.example.Smart_Spend.entity.UserToken;
 import com.example.Smart_Spend.repository.UserRepository;
+import com.example.Smart_Spend.security.AuthenticatedUser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
 import java.util.Optional;
-import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,6 +30,12 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private TokenService tokenService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UserService userService;
 
@@ -39,19 +47,22 @@ class UserServiceTest {
     @Test
     void loadUserByUsername_ShouldReturnUser_WhenEmailVerified() {
         User user = new User();
+        user.setId(1L);
         user.setEmail("test@example.com");
         user.setEmailVerified(true);
 
-        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(userRepository.loadByEmail("test@example.com")).thenReturn(Optional.of(user));
 
         var result = userService.loadUserByUsername("test@example.com");
 
-        assertEquals(user, result);
+        AuthenticatedUser principal = assertInstanceOf(AuthenticatedUser.class, result);
+        assertEquals(1L, principal.getId());
+        assertEquals("test@example.com", principal.getUsername());
     }
 
     @Test
     void loadUserByUsername_ShouldThrow_WhenEmailNotFound() {
-        when(userRepository.findByEmail("unknown@example.com")).thenReturn(Optional.empty());
+        when(userRepository.loadByEmail("unknown@example.com")).thenReturn(Optional.empty());
 
         assertThrows(UsernameNotFoundException.class,
                 () -> userService.loadUserByUsername("unknown@example.com"));
@@ -63,7 +74,7 @@ class UserServiceTest {
         user.setEmail("test@example.com");
         user.setEmailVerified(false);
 
-        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(userRepository.loadByEmail("test@example.com")).thenReturn(Optional.of(user));
 
         assertThrows(RuntimeException.class,
                 () -> userService.loadUserByUsername("test@example.com"));
@@ -78,69 +89,67 @@ class UserServiceTest {
         when(passwordEncoder.encode(password)).thenReturn("encodedPass");
 
         User savedUser = new User();
+        savedUser.setId(7L);
         savedUser.setEmail(email);
 
         when(userRepository.save(any(User.class))).thenReturn(savedUser);
+        when(tokenService.issue(eq(7L), eq(UserToken.Purpose.VERIFY_EMAIL), any(Duration.class))).thenReturn("tok");
 
         User result = userService.registerUser(email, password, "John", "Doe");
 
         assertNotNull(result);
         verify(userRepository, times(1)).save(any(User.class));
-        verify(emailService, times(1)).sendVerificationEmail(any(User.class));
+        verify(emailService, times(1)).sendVerificationEmail(savedUser, "tok");
     }
 
     @Test
     void verifyEmail_ShouldReturnTrue_WhenTokenValid() {
         User user = new User();
-        user.setVerificationToken("abc");
+        user.setId(1L);
 
-        when(userRepository.findByVerificationToken("abc")).thenReturn(Optional.of(user));
+        when(tokenService.consume("abc", UserToken.Purpose.VERIFY_EMAIL)).thenReturn(Optional.of(1L));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
 
         boolean result = userService.verifyEmail("abc");
 
         assertTrue(result);
-        assertNull(user.getVerificationToken());
         assertTrue(user.isEmailVerified());
     }
 
     @Test
     void initiatePasswordReset_ShouldSendEmail_WhenUserExists() {
         User user = new User();
+        user.setId(1L);
         user.setEmail("test@example.com");
 
-        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(userRepository.loadByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(tokenService.issue(eq(1L), eq(UserToken.Purpose.RESET_PASSWORD), any(Duration.class))).thenReturn("tok");
 
         userService.initiatePasswordReset("test@example.com");
 
-        assertNotNull(user.getResetToken());
-        assertNotNull(user.getResetTokenExpiry());
-        verify(emailService, times(1)).sendPasswordResetEmail(user);
+        verify(emailService, times(1)).sendPasswordResetEmail(user, "tok");
     }
 
     @Test
     void resetPassword_ShouldReturnTrue_WhenValidToken() {
         User user = new User();
-        user.setResetToken("xyz");
-        user.setResetTokenExpiry(LocalDateTime.now().plusHours(1));
+        user.setId(1L);
 
-        when(userRepository.findByResetToken("xyz")).thenReturn(Optional.of(user));
+        when(tokenService.consume("xyz", UserToken.Purpose.RESET_PASSWORD)).thenReturn(Optional.of(1L));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(passwordEncoder.encode("newPass")).thenReturn("encodedPass");
 
         boolean result = userService.resetPassword("xyz", "newPass");
 
         assertTrue(result);
-        assertNull(user.getResetToken());
-        assertNull(user.getResetTokenExpiry());
+        assertEquals("encodedPass", user.getPassword());
         verify(userRepository, times(1)).save(user);
     }
 
     @Test
     void resetPassword_ShouldReturnFalse_WhenTokenExpired() {
-        User user = new User();
-        user.setResetToken("expired");
-        user.setResetTokenExpiry(LocalDateTime.now().minusHours(1));
-
-        when(userRepository.findByResetToken("expired")).thenReturn(Optional.of(user));
+        // Expired tokens are not matched by the consuming DELETE
+        when(tokenService.consume("expired", UserToken.Purpose.RESET_PASSWORD)).thenReturn(Optional.empty());
 
         boolean result = userService.resetPassword("expired", "newPass");
 